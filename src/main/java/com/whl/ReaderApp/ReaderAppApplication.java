@@ -1,5 +1,6 @@
 package com.whl.ReaderApp;
 
+import com.whl.ReaderApp.config.UploadProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -21,7 +22,7 @@ public class ReaderAppApplication {
     }
 
     @Bean
-    RouterFunction<?> resourceRouter() {
-        return RouterFunctions.resources("/upload/**", new FileSystemResource("upload/"));
+    RouterFunction<?> resourceRouter(UploadProperties uploadProperties) {
+        return RouterFunctions.resources("/upload/**", new FileSystemResource(uploadProperties.getDir() + "/"));
     }
 }
@@ -0,0 +1,53 @@
+package com.whl.ReaderApp.catalog;
+
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.repository.AuthorIndexRepository;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 作者索引投影：按批读取新增书籍，写入作者到书籍子KEY的集合
+ *
+ * @author whl
+ */
+@Component
+public class AuthorIndexProjection implements CatalogProjection {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorIndexRepository authorIndexRepository;
+
+    @Override
+    public String name() {
+        return "author-index";
+    }
+
+    @Override
+    public Mono<Void> apply(List<CatalogEvent> events) {
+        Set<String> childKeys = new LinkedHashSet<>();
+        for (CatalogEvent event : events) {
+            if (CatalogEvent.BOOK_ADDED.equals(event.getType())) {
+                childKeys.add(event.getChildKey());
+            }
+        }
+        if (childKeys.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return bookRepository.findAll(childKeys)
+                .collectMultimap(book -> book.getAuthor().trim(), BookService::childKey)
+                .flatMapMany(byAuthor -> Flux.fromIterable(byAuthor.entrySet()))
+                .concatMap(e -> authorIndexRepository.add(e.getKey(), e.getValue()))
+                .then();
+    }
+}
@@ -0,0 +1,31 @@
+package com.whl.ReaderApp.catalog;
+
+import com.whl.ReaderApp.domain.CatalogEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 书目投影：由变更事件异步维护的派生数据
+ * <p>
+ * 事件至少投递一次，重建时会从头重放，实现必须是幂等的。
+ *
+ * @author whl
+ */
+public interface CatalogProjection {
+
+    /**
+     * 投影名称
+     *
+     * @return 名称
+     */
+    String name();
+
+    /**
+     * 应用一批事件
+     *
+     * @param events 按日志顺序排列的事件
+     * @return 完成信号，出错时整批不确认，稍后重新投递
+     */
+    Mono<Void> apply(List<CatalogEvent> events);
+}
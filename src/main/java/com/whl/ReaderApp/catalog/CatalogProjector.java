@@ -0,0 +1,208 @@
+package com.whl.ReaderApp.catalog;
+
+import com.whl.ReaderApp.config.CatalogStreamProperties;
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.repository.CatalogEventLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 书目投影工作线程
+ * <p>
+ * 定时以消费组方式读取变更事件，按批依次交给各个投影，全部成功后才确认（至少一次）；
+ * 确认即检查点，重启后先取回未确认的事件。重建投影时把消费组重置到日志开头重放。
+ * 待确认期间被日志长度上限裁剪的事件只剩ID，直接确认并跳过，否则每次轮询都会重新取回它而无法前进。
+ * <p>
+ * 新增书籍时书籍写入、版本号递增与事件写入是三条命令，书籍写入成功后后两步失败不再让新增失败，
+ * 而是登记到补写队列，每次轮询时先补写（至少一次：版本号可能多递增一次，事件可能重复，投影是幂等的）。
+ * 补写队列只在本进程内，进程在补写前退出时会丢失，登记时日志中记录了书籍子KEY。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+public class CatalogProjector {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private CatalogEventLog catalogEventLog;
+
+    @Autowired
+    private CatalogStreamProperties streamProperties;
+
+    @Autowired
+    private List<CatalogProjection> projections;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    /**
+     * 已写入但版本号或事件未写入成功的书籍子KEY
+     */
+    private final Queue<String> unpublished = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong republished = new AtomicLong();
+
+    private volatile boolean groupReady;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong trimmed = new AtomicLong();
+
+    private volatile long lastBatchMillis;
+
+    private volatile long lastPollAt;
+
+    @Scheduled(fixedDelayString = "${reader.catalog.stream.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            republish();
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.warn("[书目事件] 补写失败，稍后重试：" + e.getMessage());
+        }
+        if (!streamProperties.isEnabled()) {
+            return;
+        }
+        lastPollAt = System.currentTimeMillis();
+        try {
+            ensureGroup().block(TIMEOUT);
+            for (int i = 0; i < streamProperties.getMaxBatchesPerPoll(); i++) {
+                Integer size = processBatch().block(TIMEOUT);
+                if (size == null || size < streamProperties.getBatchSize()) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.warn("[书目事件] 投影失败，稍后重试：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 登记需要补写版本号与事件的书籍
+     *
+     * @param childKey 子KEY
+     */
+    public void publishLater(String childKey) {
+        unpublished.add(childKey);
+    }
+
+    /**
+     * 按登记顺序补写，失败时留在队首等下次轮询
+     */
+    private void republish() {
+        String childKey;
+        while ((childKey = unpublished.peek()) != null) {
+            Mono<Void> event = streamProperties.isEnabled()
+                    ? catalogEventLog.append(CatalogEvent.BOOK_ADDED, childKey).then()
+                    : Mono.empty();
+            // 先写事件：事件一直写不进去时不会每次轮询都递增版本号让搜索缓存失效
+            event.then(bookRepository.incrementVersion()).block(TIMEOUT);
+            unpublished.poll();
+            republished.incrementAndGet();
+        }
+    }
+
+    /**
+     * 读取并处理一批事件
+     *
+     * @return 本批事件数
+     */
+    private Mono<Integer> processBatch() {
+        String group = streamProperties.getGroup();
+
+        return catalogEventLog.read(group, streamProperties.getConsumer(), streamProperties.getBatchSize())
+                .collectList()
+                .flatMap(events -> {
+                    if (events.isEmpty()) {
+                        return Mono.just(0);
+                    }
+                    long start = System.nanoTime();
+                    List<String> ids = new ArrayList<>(events.size());
+                    List<CatalogEvent> applicable = new ArrayList<>(events.size());
+                    for (CatalogEvent event : events) {
+                        ids.add(event.getId());
+                        if (CatalogEvent.TRIMMED.equals(event.getType())) {
+                            trimmed.incrementAndGet();
+                            log.warn("[书目事件] 待确认事件 {} 已被裁剪，确认后跳过，投影可能缺少该事件，需要时重建", event.getId());
+                        } else {
+                            applicable.add(event);
+                        }
+                    }
+                    Flux<Void> applied = applicable.isEmpty()
+                            ? Flux.empty()
+                            : Flux.fromIterable(projections).concatMap(projection -> projection.apply(applicable));
+                    return applied
+                            .then(catalogEventLog.ack(group, ids))
+                            .doOnSuccess(acked -> {
+                                processed.addAndGet(events.size());
+                                batches.incrementAndGet();
+                                lastBatchMillis = (System.nanoTime() - start) / 1_000_000;
+                            })
+                            .thenReturn(events.size());
+                });
+    }
+
+    /**
+     * 重放全部事件重建投影
+     *
+     * @return 完成信号
+     */
+    public Mono<Void> rebuild() {
+        return ensureGroup().then(catalogEventLog.reset(streamProperties.getGroup()));
+    }
+
+    /**
+     * 消费状态与延迟
+     *
+     * @return 指标
+     */
+    public Mono<Map<String, Object>> stats() {
+        return catalogEventLog.stats(streamProperties.getGroup())
+                .map(stats -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("enabled", streamProperties.isEnabled());
+                    result.put("group", streamProperties.getGroup());
+                    result.put("consumer", streamProperties.getConsumer());
+                    result.put("projections", projections.stream().map(CatalogProjection::name).toArray());
+                    result.put("stream", stats);
+                    result.put("processed", processed.get());
+                    result.put("batches", batches.get());
+                    result.put("failures", failures.get());
+                    result.put("trimmed", trimmed.get());
+                    result.put("unpublished", unpublished.size());
+                    result.put("republished", republished.get());
+                    result.put("lastBatchMillis", lastBatchMillis);
+                    result.put("lastPollAt", lastPollAt);
+                    return result;
+                });
+    }
+
+    private Mono<Void> ensureGroup() {
+        if (groupReady) {
+            return Mono.empty();
+        }
+        return catalogEventLog.createGroup(streamProperties.getGroup())
+                .doOnSuccess(o -> groupReady = true);
+    }
+}
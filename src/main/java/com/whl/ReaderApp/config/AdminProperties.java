@@ -0,0 +1,21 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 运维接口配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.admin")
+public class AdminProperties {
+
+    /**
+     * 重建等会改变状态的运维接口需在 X-Admin-Token 请求头中携带该令牌；为空时这些接口关闭，返回 404
+     */
+    private String token = "";
+}
@@ -0,0 +1,46 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 书籍接口相关配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.book")
+public class BookApiProperties {
+
+    /**
+     * 批量查询单次允许的最大ID数
+     */
+    private int batchMaxSize = 200;
+
+    /**
+     * 首页聚合接口
+     */
+    private Home home = new Home();
+
+    /**
+     * 首页聚合接口配置，各分区超时后以空数据返回，不影响其它分区
+     */
+    @Data
+    public static class Home {
+
+        private Duration shopTimeout = Duration.ofMillis(300);
+
+        private Duration historyTimeout = Duration.ofMillis(200);
+
+        private Duration trendingTimeout = Duration.ofMillis(200);
+
+        /**
+         * 热门关键词数量
+         */
+        private int trendingSize = 10;
+    }
+}
@@ -10,24 +10,29 @@ import org.synchronoss.cloud.nio.multipart.MultipartUtils;
 import reactor.core.publisher.Mono;
 
 /**
- * 允许跨域的过滤器
+ * 允许跨域的过滤器，运维接口（/api/admin）除外
  *
  * @author whl
  */
 @Component
 public class CORSConfig implements WebFilter {
 
+    private static final String ADMIN_PATH = "/api/admin/";
+
     @Override
     public Mono<Void> filter(final ServerWebExchange serverWebExchange, final WebFilterChain webFilterChain) {
+        if (serverWebExchange.getRequest().getPath().value().startsWith(ADMIN_PATH)) {
+            return webFilterChain.filter(serverWebExchange);
+        }
         serverWebExchange.getResponse().getHeaders().add("Access-Control-Allow-Origin", "*");
         serverWebExchange.getResponse().getHeaders().add("Access-Control-Allow-Methods", "GET, PUT, POST, DELETE, OPTIONS");
-        serverWebExchange.getResponse().getHeaders().add("Access-Control-Allow-Headers", "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Content-Range,Range");
+        serverWebExchange.getResponse().getHeaders().add("Access-Control-Allow-Headers", "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,If-None-Match,Cache-Control,Content-Type,Content-Range,Range");
         if (serverWebExchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
             serverWebExchange.getResponse().getHeaders().add("Access-Control-Max-Age", "1728000");
             serverWebExchange.getResponse().setStatusCode(HttpStatus.NO_CONTENT);
             return Mono.empty();
         } else {
-            serverWebExchange.getResponse().getHeaders().add("Access-Control-Expose-Headers", "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Content-Range,Range");
+            serverWebExchange.getResponse().getHeaders().add("Access-Control-Expose-Headers", "DNT,X-CustomHeader,Keep-Alive,User-Agent,X-Requested-With,If-Modified-Since,Cache-Control,Content-Type,Content-Range,Range,ETag");
             return webFilterChain.filter(serverWebExchange);
         }
     }
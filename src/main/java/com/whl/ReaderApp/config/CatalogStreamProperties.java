@@ -0,0 +1,57 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 书目变更事件流配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.catalog.stream")
+public class CatalogStreamProperties {
+
+    /**
+     * 是否写入事件并运行投影
+     */
+    private boolean enabled = true;
+
+    /**
+     * 投影使用的消费组
+     */
+    private String group = "projections";
+
+    /**
+     * 消费者名称，需在重启后保持不变，才能取回重启前未确认的事件
+     */
+    private String consumer = defaultConsumer();
+
+    /**
+     * 每批读取的事件数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 每次轮询最多处理的批数
+     */
+    private int maxBatchesPerPoll = 10;
+
+    /**
+     * 日志近似最大长度（XADD MAXLEN ~），决定可重放的范围
+     */
+    private long maxLength = 1_000_000;
+
+    private static String defaultConsumer() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "reader";
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 购物车与搜索历史闲置过期与容量配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.expiry")
+public class ExpiryProperties {
+
+    /**
+     * 是否在访问时刷新过期时间
+     */
+    private boolean enabled = true;
+
+    /**
+     * 购物车闲置多久后过期
+     */
+    private Duration cartTtl = Duration.ofDays(30);
+
+    /**
+     * 搜索历史闲置多久后过期
+     */
+    private Duration historyTtl = Duration.ofDays(30);
+
+    /**
+     * 读取时刷新过期时间的最小间隔，同一个KEY在间隔内只刷新一次，写入时总是刷新
+     */
+    private Duration touchInterval = Duration.ofHours(1);
+
+    /**
+     * 每个帐号保留的搜索历史条数，超出部分由清理任务删除最早的记录，0 表示不限
+     */
+    private int historyMaxEntries = 200;
+
+    /**
+     * 热门关键词保留的个数，每次累加后删除分数最低的关键词，0 表示不限
+     */
+    private int trendingMaxEntries = 10_000;
+
+    /**
+     * 后台清理
+     */
+    private Sweep sweep = new Sweep();
+
+    @Data
+    public static class Sweep {
+
+        /**
+         * 是否启用后台清理
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每次调度最多执行的 SCAN 批次数，调度间隔由 reader.expiry.sweep.interval-ms 配置
+         */
+        private int batchesPerTick = 5;
+
+        /**
+         * 每批 SCAN 的 COUNT
+         */
+        private int batchSize = 100;
+
+        /**
+         * 一轮清理完成后，间隔多久开始下一轮
+         */
+        private Duration passInterval = Duration.ofHours(1);
+
+        /**
+         * 单批处理的超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,60 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帐号与书籍存在性过滤器配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.filter")
+public class FilterProperties {
+
+    /**
+     * 是否启用，关闭后所有存在性判断照常查询存储
+     * <p>
+     * 默认关闭：过滤器只在本机维护，其它实例新增的数据在本机重建前会被误判为不存在，只适合单实例部署
+     */
+    private boolean enabled = false;
+
+    /**
+     * 重建时每批 HSCAN 的条数，重建间隔由 reader.filter.rebuild-interval-ms 配置
+     */
+    private int scanBatchSize = 500;
+
+    /**
+     * 帐号过滤器
+     */
+    private Spec accounts = new Spec(1_000_000, 0.01);
+
+    /**
+     * 书籍过滤器
+     */
+    private Spec books = new Spec(100_000, 0.01);
+
+    @Data
+    public static class Spec {
+
+        /**
+         * 预期元素数，实际元素数超过一半时下次重建自动扩容
+         */
+        private long expectedInsertions;
+
+        /**
+         * 预期元素数下的误判率
+         */
+        private double fpp;
+
+        public Spec() {
+        }
+
+        Spec(long expectedInsertions, double fpp) {
+            this.expectedInsertions = expectedInsertions;
+            this.fpp = fpp;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 热点KEY统计与本地缓存配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.hotkey")
+public class HotKeyProperties {
+
+    /**
+     * 是否统计热点KEY，关闭后也不再提升到本地缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采样率，每次访问以该概率计入统计
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * 每个时间窗口保留的计数器数量，超出后替换计数最小者
+     */
+    private int capacity = 256;
+
+    /**
+     * 单个时间窗口长度（毫秒）
+     */
+    private long windowMs = 10_000;
+
+    /**
+     * 滑动窗口由多少个时间窗口组成
+     */
+    private int windows = 6;
+
+    /**
+     * 估算访问频率（次/秒）达到该值的KEY提升到本地缓存
+     */
+    private double threshold = 50;
+
+    /**
+     * 管理接口展示的热点KEY数量
+     */
+    private int topSize = 20;
+
+    /**
+     * 本地缓存有效期
+     */
+    private Duration ttl = Duration.ofSeconds(1);
+
+    /**
+     * 本地缓存最大条目数
+     */
+    private long maximumSize = 10_000;
+}
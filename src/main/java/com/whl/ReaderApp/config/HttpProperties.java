@@ -0,0 +1,38 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP 缓存相关配置，压缩使用 server.compression.*
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.http")
+public class HttpProperties {
+
+    /**
+     * 条件请求
+     */
+    private ETag etag = new ETag();
+
+    /**
+     * 条件请求配置
+     */
+    @Data
+    public static class ETag {
+
+        /**
+         * 是否为搜索、购物车、搜索历史生成 ETag 并处理 If-None-Match
+         */
+        private boolean enabled = true;
+
+        /**
+         * 带 ETag 响应的 Cache-Control，no-cache 表示客户端可缓存但每次使用前需重新验证
+         */
+        private String cacheControl = "no-cache";
+    }
+}
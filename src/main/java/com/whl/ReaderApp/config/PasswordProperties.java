@@ -0,0 +1,41 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 密码哈希配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.password")
+public class PasswordProperties {
+
+    /**
+     * PBKDF2 迭代次数，调高后旧记录在下次登录时按新次数重新哈希
+     */
+    private int iterations = 100_000;
+
+    /**
+     * 盐长度（字节）
+     */
+    private int saltBytes = 16;
+
+    /**
+     * 派生密钥长度（位）
+     */
+    private int keyBits = 256;
+
+    /**
+     * 哈希线程数，0 表示 CPU 核数
+     */
+    private int threads = 0;
+
+    /**
+     * 等待队列长度，队列满时立即拒绝
+     */
+    private int queueCapacity = 256;
+}
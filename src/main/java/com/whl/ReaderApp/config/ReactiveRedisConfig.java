@@ -1,5 +1,9 @@
 package com.whl.ReaderApp.config;
 
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -11,12 +15,30 @@ import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 @Configuration
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
 public class ReactiveRedisConfig {
 
+    /**
+     * Lettuce 的 I/O 与计算线程，与 HTTP 服务的事件循环分开，线程数见 reader.runtime.redis
+     * <p>
+     * 当前版本的 Lettuce 在加载时按 JVM 参数一次性决定传输方式，ClientResources 无法指定：
+     * 默认可用时使用 epoll，需要 NIO 时以 -Dio.lettuce.core.epoll=false 启动。
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(RuntimeProperties runtimeProperties) {
+        RuntimeProperties.Redis redis = runtimeProperties.getRedis();
+        return DefaultClientResources.builder()
+                .ioThreadPoolSize(redis.getIoThreads() > 0 ? redis.getIoThreads() : DefaultClientResources.DEFAULT_IO_THREADS)
+                .computationThreadPoolSize(redis.getComputationThreads() > 0
+                        ? redis.getComputationThreads() : DefaultClientResources.DEFAULT_COMPUTATION_THREADS)
+                .build();
+    }
+
     @Primary
     @Bean
-    public LettuceConnectionFactory lettuceConnectionFactory() {
+    public LettuceConnectionFactory lettuceConnectionFactory(ClientResources lettuceClientResources) {
         LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .clientResources(lettuceClientResources)
                 .build();
 
         RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration("119.23.149.25", 6379);
@@ -26,8 +48,37 @@ public class ReactiveRedisConfig {
         return new LettuceConnectionFactory(standalone, clientConfig);
     }
 
+    @Primary
     @Bean
     public ReactiveRedisTemplate<String, String> reactiveRedisTemplate(LettuceConnectionFactory factory) {
         return new ReactiveRedisTemplate<>(factory, RedisSerializationContext.string());
     }
+
+    /**
+     * 从节点连接，与主节点共用 Lettuce 线程，由 RedisGuard 用于对冲读与主节点熔断时的只读请求
+     */
+    @Bean
+    @ConditionalOnProperty(name = "reader.redis.replica.enabled", havingValue = "true")
+    public LettuceConnectionFactory replicaConnectionFactory(ClientResources lettuceClientResources,
+                                                             RedisReplicaProperties replicaProperties) {
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .clientResources(lettuceClientResources)
+                .build();
+
+        RedisStandaloneConfiguration standalone =
+                new RedisStandaloneConfiguration(replicaProperties.getHost(), replicaProperties.getPort());
+        if (replicaProperties.getPassword() != null) {
+            standalone.setPassword(RedisPassword.of(replicaProperties.getPassword()));
+        }
+        standalone.setDatabase(replicaProperties.getDatabase());
+
+        return new LettuceConnectionFactory(standalone, clientConfig);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "reader.redis.replica.enabled", havingValue = "true")
+    public ReactiveRedisTemplate<String, String> replicaRedisTemplate(
+            @Qualifier("replicaConnectionFactory") LettuceConnectionFactory factory) {
+        return new ReactiveRedisTemplate<>(factory, RedisSerializationContext.string());
+    }
 }
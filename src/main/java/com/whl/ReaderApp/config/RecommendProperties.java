@@ -0,0 +1,53 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 购物车共现推荐配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.recommend")
+public class RecommendProperties {
+
+    /**
+     * 是否在加入购物车时记录共现
+     */
+    private boolean enabled = true;
+
+    /**
+     * 默认返回的推荐数量
+     */
+    private int size = 10;
+
+    /**
+     * 每本书保留的邻居数量，也是单次请求允许的最大推荐数量
+     */
+    private int capacity = 100;
+
+    /**
+     * 共现权重的半衰期，修改后已有权重与新增权重的相对比例会改变，需重建数据
+     */
+    private Duration halfLife = Duration.ofDays(30);
+
+    /**
+     * 加入购物车时最多与多少个已有条目配对
+     */
+    private int maxPairsPerAdd = 50;
+
+    /**
+     * 按购物车推荐时最多取多少个条目的邻居
+     */
+    private int maxCartSeeds = 20;
+
+    /**
+     * 内存中最多缓冲的待写入邻居条目数，超出后丢弃
+     */
+    private int maxPending = 100_000;
+}
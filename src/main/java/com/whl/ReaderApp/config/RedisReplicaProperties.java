@@ -0,0 +1,26 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 从节点配置，用于对冲读与主节点熔断时的只读请求
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.redis.replica")
+public class RedisReplicaProperties {
+
+    private boolean enabled = false;
+
+    private String host;
+
+    private int port = 6379;
+
+    private String password;
+
+    private int database = 1;
+}
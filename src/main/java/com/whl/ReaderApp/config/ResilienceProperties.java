@@ -0,0 +1,130 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis 调用的超时、熔断、对冲读与降级配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.resilience")
+public class ResilienceProperties {
+
+    /**
+     * 只读操作默认超时
+     */
+    private Duration readTimeout = Duration.ofMillis(200);
+
+    /**
+     * 写操作默认超时
+     */
+    private Duration writeTimeout = Duration.ofMillis(500);
+
+    /**
+     * 按操作名覆盖超时，例如 reader.resilience.timeouts[book.scan]=2s
+     */
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    /**
+     * 熔断
+     */
+    private Breaker breaker = new Breaker();
+
+    /**
+     * 对冲读
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 降级时返回的最近一次成功读取的书目数据
+     */
+    private Stale stale = new Stale();
+
+    /**
+     * 熔断配置，按最近若干次调用的失败率判断
+     */
+    @Data
+    public static class Breaker {
+
+        private boolean enabled = true;
+
+        /**
+         * 统计最近多少次调用
+         */
+        private int windowSize = 50;
+
+        /**
+         * 窗口内调用数达到该值后才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率达到该值时打开
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 打开后多久进入半开状态
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * 半开状态放行的试探调用数，全部成功后关闭
+         */
+        private int halfOpenCalls = 5;
+    }
+
+    /**
+     * 对冲读配置：主节点在该操作的历史分位延迟内未返回时，向从节点再发一次，取先返回者
+     */
+    @Data
+    public static class Hedge {
+
+        /**
+         * 配置了从节点时是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 触发对冲的延迟分位
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 样本数不足时不对冲
+         */
+        private int minSamples = 50;
+
+        /**
+         * 对冲延迟下限，避免极快的操作也发出第二次请求
+         */
+        private Duration minDelay = Duration.ofMillis(2);
+    }
+
+    /**
+     * 降级数据配置
+     */
+    @Data
+    public static class Stale {
+
+        private boolean enabled = true;
+
+        /**
+         * 最多保留的书籍数
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * 写入后的存活时间，超过后不再用于降级
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.whl.ReaderApp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import reactor.ipc.netty.resources.LoopResources;
+
+/**
+ * HTTP 服务事件循环与定时任务线程池
+ * <p>
+ * 默认情况下 Reactor Netty 的服务端与客户端共用全局事件循环。这里为 HTTP 服务单独创建指定大小的事件循环，
+ * Redis 客户端的线程见 {@link ReactiveRedisConfig}，阻塞文件读写见 FileIoScheduler，三者互不占用。
+ * 原生传输由 preferNative 控制，epoll 不可用时 Reactor Netty 自动使用 NIO。
+ * <p>
+ * 未定义 TaskScheduler 时所有 @Scheduled 任务共用一个线程，投影、推荐落盘、过期清理都会阻塞等待 Redis，
+ * 一个任务卡住其余任务都会停摆，这里为定时任务单独创建定长线程池。
+ *
+ * @author whl
+ */
+@Slf4j
+@Configuration
+public class RuntimeConfig {
+
+    /**
+     * 线程名前缀，线程池指标按此归类
+     */
+    public static final String SERVER_THREAD_PREFIX = "reader-http-";
+
+    /**
+     * 定时任务线程名前缀
+     */
+    public static final String SCHEDULING_THREAD_PREFIX = "scheduling-";
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources serverLoopResources(RuntimeProperties runtimeProperties) {
+        RuntimeProperties.Server server = runtimeProperties.getServer();
+        int workers = server.getWorkerThreads() > 0 ? server.getWorkerThreads() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        return LoopResources.create("reader-http", server.getSelectThreads(), workers, true);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> serverLoopCustomizer(
+            LoopResources serverLoopResources, RuntimeProperties runtimeProperties) {
+        return factory -> factory.addServerCustomizers(options -> options
+                .loopResources(serverLoopResources)
+                .preferNative(runtimeProperties.isPreferNative()));
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(RuntimeProperties runtimeProperties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(runtimeProperties.getScheduling().getThreads());
+        scheduler.setThreadNamePrefix(SCHEDULING_THREAD_PREFIX);
+        scheduler.setDaemon(true);
+        scheduler.setErrorHandler(e -> log.warn("[定时任务] 执行失败：" + e.getMessage(), e));
+        return scheduler;
+    }
+}
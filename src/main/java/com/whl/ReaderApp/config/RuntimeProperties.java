@@ -0,0 +1,93 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 运行时线程资源配置：HTTP 服务与 Redis 客户端各自的事件循环、文件读写线程池、定时任务线程池
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.runtime")
+public class RuntimeProperties {
+
+    /**
+     * HTTP 服务优先使用 epoll 原生传输，不可用时（非 Linux 或缺少原生库）自动使用 NIO。
+     * Redis 客户端不受此项控制，使用 NIO 需以 -Dio.lettuce.core.epoll=false 启动
+     */
+    private boolean preferNative = true;
+
+    /**
+     * HTTP 服务事件循环
+     */
+    private Server server = new Server();
+
+    /**
+     * Redis 客户端（Lettuce）线程
+     */
+    private Redis redis = new Redis();
+
+    /**
+     * 文件读写线程池
+     */
+    private FileIo fileIo = new FileIo();
+
+    /**
+     * 定时任务线程池
+     */
+    private Scheduling scheduling = new Scheduling();
+
+    @Data
+    public static class Server {
+
+        /**
+         * 接受连接的线程数
+         */
+        private int selectThreads = 1;
+
+        /**
+         * 处理请求的事件循环线程数，0 表示 CPU 核数（至少 4）
+         */
+        private int workerThreads = 0;
+    }
+
+    @Data
+    public static class Redis {
+
+        /**
+         * 网络 I/O 线程数，0 表示 CPU 核数（至少 3）
+         */
+        private int ioThreads = 0;
+
+        /**
+         * 解码后分发结果的计算线程数，0 表示 CPU 核数（至少 3）
+         */
+        private int computationThreads = 0;
+    }
+
+    @Data
+    public static class FileIo {
+
+        /**
+         * 线程数
+         */
+        private int threads = 4;
+
+        /**
+         * 等待队列长度，队列满时立即拒绝
+         */
+        private int queueCapacity = 256;
+    }
+
+    @Data
+    public static class Scheduling {
+
+        /**
+         * 线程数，不小于同时运行的定时任务数，避免阻塞等待 Redis 的任务互相拖延
+         */
+        private int threads = 6;
+    }
+}
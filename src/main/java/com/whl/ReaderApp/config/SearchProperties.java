@@ -0,0 +1,119 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 搜索相关配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.search")
+public class SearchProperties {
+
+    /**
+     * 读取书籍的方式
+     */
+    private Mode mode = Mode.SCAN;
+
+    /**
+     * SCAN 模式下每批读取的条数（HSCAN COUNT）
+     */
+    private int scanBatchSize = 200;
+
+    /**
+     * 默认返回的最大结果数
+     */
+    private int limit = 100;
+
+    /**
+     * 单次请求允许的最大结果数
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * 相关度排序
+     */
+    private Ranking ranking = new Ranking();
+
+    /**
+     * 搜索结果缓存
+     */
+    private ResultCache resultCache = new ResultCache();
+
+    public enum Mode {
+        /**
+         * 游标分批读取，边读边过滤，满足数量后立即停止
+         */
+        SCAN,
+        /**
+         * 一次读取全部书籍后过滤
+         */
+        FULL
+    }
+
+    /**
+     * 相关度排序的打分配置
+     */
+    @Data
+    public static class Ranking {
+
+        /**
+         * 开启后需要遍历全部书籍才能确定前 K 个，不能提前结束，SCAN 模式下仍按批读取，内存只保留 K 个结果
+         */
+        private boolean enabled = false;
+
+        private double nameExact = 100;
+
+        private double namePrefix = 80;
+
+        private double nameInfix = 60;
+
+        /**
+         * 书名模糊匹配的满分，实际得分乘以相似度
+         */
+        private double nameFuzzy = 40;
+
+        private double authorExact = 50;
+
+        private double authorPrefix = 40;
+
+        private double authorInfix = 30;
+
+        private double authorFuzzy = 20;
+
+        /**
+         * 模糊匹配的最低三元组相似度
+         */
+        private double fuzzyThreshold = 0.5;
+
+        /**
+         * 关键字短于该长度时不做模糊匹配
+         */
+        private int fuzzyMinLength = 2;
+    }
+
+    /**
+     * 搜索结果缓存配置，缓存的是匹配书籍的子KEY列表
+     */
+    @Data
+    public static class ResultCache {
+
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的关键字数量
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 写入后的存活时间
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+}
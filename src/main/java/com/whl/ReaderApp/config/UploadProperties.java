@@ -0,0 +1,31 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 封面上传配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.upload")
+public class UploadProperties {
+
+    /**
+     * 文件存储目录，通过 /upload/** 访问
+     */
+    private String dir = "upload";
+
+    /**
+     * 单个文件的最大字节数
+     */
+    private long maxBytes = 5L * 1024 * 1024;
+
+    /**
+     * /upload/** 响应的 Cache-Control；文件名即内容哈希，内容不会变化，客户端和代理可以永久缓存
+     */
+    private String cacheControl = "public, max-age=31536000, immutable";
+}
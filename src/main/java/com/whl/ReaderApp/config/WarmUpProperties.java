@@ -0,0 +1,61 @@
+package com.whl.ReaderApp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 启动预热配置
+ *
+ * @author whl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "reader.warmup")
+public class WarmUpProperties {
+
+    /**
+     * 关闭后启动即就绪
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预热搜索缓存使用的热门关键词数量
+     */
+    private int trendingSize = 20;
+
+    /**
+     * 没有热门关键词时使用的关键词
+     */
+    private List<String> probeKeywords = new ArrayList<>(Arrays.asList("书", "a"));
+
+    /**
+     * 通过 HTTP 调用各个路由的轮数
+     */
+    private int iterations = 200;
+
+    /**
+     * 没有热门关键词时调用搜索路由的轮数，备用关键词不经过搜索缓存
+     */
+    private int probeSearchIterations = 10;
+
+    /**
+     * 调用路由的并发数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 单个步骤的超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * 失败后重试的间隔
+     */
+    private Duration retryInterval = Duration.ofSeconds(5);
+}
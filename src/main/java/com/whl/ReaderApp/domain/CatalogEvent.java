@@ -0,0 +1,41 @@
+package com.whl.ReaderApp.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 书目变更事件
+ *
+ * @author whl
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogEvent {
+
+    /**
+     * 新增书籍
+     */
+    public static final String BOOK_ADDED = "BOOK_ADDED";
+
+    /**
+     * 已被日志长度上限裁剪的待确认事件，内容已丢失，只有ID，确认后跳过
+     */
+    public static final String TRIMMED = "TRIMMED";
+
+    /**
+     * 事件ID，格式与 Redis Stream 一致：毫秒时间戳-序号
+     */
+    private String id;
+
+    /**
+     * 事件类型
+     */
+    private String type;
+
+    /**
+     * 书籍子KEY
+     */
+    private String childKey;
+}
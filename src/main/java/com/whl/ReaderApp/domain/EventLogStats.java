@@ -0,0 +1,64 @@
+package com.whl.ReaderApp.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 事件日志消费状态
+ *
+ * @author whl
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventLogStats {
+
+    /**
+     * 日志中的事件数
+     */
+    private Long length;
+
+    /**
+     * 最新写入的事件ID
+     */
+    private String lastGeneratedId;
+
+    /**
+     * 消费组最后投递的事件ID
+     */
+    private String lastDeliveredId;
+
+    /**
+     * 已投递未确认的事件数
+     */
+    private Long pending;
+
+    /**
+     * 最新事件与最后投递事件的时间差（毫秒），消费组尚未投递过任何事件时为 -1
+     */
+    private Long lagMillis;
+
+    /**
+     * 由事件ID中的毫秒时间戳计算时间差
+     *
+     * @param lastGeneratedId 最新写入的事件ID
+     * @param lastDeliveredId 最后投递的事件ID
+     * @return 时间差（毫秒）
+     */
+    public static long lagMillis(String lastGeneratedId, String lastDeliveredId) {
+        if (lastGeneratedId == null || lastGeneratedId.equals(lastDeliveredId)) {
+            return 0;
+        }
+        long delivered = lastDeliveredId == null ? 0 : millisOf(lastDeliveredId);
+        if (delivered == 0) {
+            return -1;
+        }
+        return Math.max(millisOf(lastGeneratedId) - delivered, 0);
+    }
+
+    private static long millisOf(String id) {
+        int dash = id.indexOf('-');
+        return Long.parseLong(dash < 0 ? id : id.substring(0, dash));
+    }
+}
@@ -0,0 +1,43 @@
+package com.whl.ReaderApp.domain;
+
+import lombok.Data;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 首页聚合数据
+ *
+ * @author whl
+ */
+@Data
+public class HomePage {
+
+    /**
+     * 购物车
+     */
+    private List<DefaultTypedTuple<Book>> shop;
+
+    /**
+     * 搜索历史
+     */
+    private List<String> history;
+
+    /**
+     * 热门关键词
+     */
+    private List<String> trending;
+
+    /**
+     * 各分区耗时（毫秒）
+     */
+    private Map<String, Long> latency = new LinkedHashMap<>();
+
+    /**
+     * 超时或出错而以空数据返回的分区
+     */
+    private List<String> degraded = new ArrayList<>();
+}
@@ -0,0 +1,284 @@
+package com.whl.ReaderApp.expiry;
+
+import com.whl.ReaderApp.config.ExpiryProperties;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SEARCH_HISTORY;
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SHOP;
+
+/**
+ * 购物车与搜索历史的后台清理
+ * <p>
+ * 上线前写入的KEY没有过期时间，访问时刷新也覆盖不到从此不再访问的帐号。清理任务用 SCAN 分批遍历键空间，
+ * 每次调度只执行 batchesPerTick 个批次，游标保存在内存中，下次调度继续；一轮遍历完成后间隔 passInterval 再开始下一轮。
+ * <p>
+ * 每个批次分两步：先用只读脚本取出各KEY的闲置时间、剩余过期时间与占用内存，再由本机计算过期时间，
+ * 用第二个脚本只给仍没有过期时间的KEY设置，并把搜索历史裁剪到 historyMaxEntries 条。
+ * 闲置时间只存在于主节点本地，不能放进会被复制到从节点重新执行的写脚本里；两步之间帐号若有写入，
+ * 写入已设置过期时间，第二步会跳过该KEY。已闲置超过过期时间的KEY设置为立即过期，由Redis删除。
+ * <p>
+ * 回收的内存为估算值：Redis 4.0 以上取 MEMORY USAGE，更早的版本按成员长度采样估算。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class IdleKeySweeper {
+
+    /**
+     * 一次遍历同时覆盖 BookShop:* 与 BookSearchHistory:*，按前缀区分；
+     * 同样匹配到的版本号KEY每次写入都带过期时间，不需要清理，跳过
+     */
+    private static final String PATTERN = "BookS*";
+
+    private static final String CART_PREFIX = RedisKey.of(BOOK_SHOP, "");
+
+    private static final String HISTORY_PREFIX = RedisKey.of(BOOK_SEARCH_HISTORY, "");
+
+    private static final String CURSOR_START = "0";
+
+    /**
+     * 当前版本的 ReactiveRedisTemplate 没有 SCAN，借助脚本执行单个批次，返回 游标、KEY...
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> SCAN = RedisScript.of(
+            "local page = redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3]) "
+                    + "local result = {page[1]} "
+                    + "for _, key in ipairs(page[2]) do result[#result + 1] = key end "
+                    + "return result", List.class);
+
+    /**
+     * 只读：按KEY依次返回 闲置秒数、剩余过期毫秒、成员数、估算字节数，KEY已不存在时闲置秒数为 -1。
+     * OBJECT IDLETIME 必须在其它读命令之前执行，否则闲置时间被重置。
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> INSPECT = RedisScript.of(
+            "local result = {} "
+                    + "for _, key in ipairs(KEYS) do "
+                    + "local idle = redis.call('OBJECT', 'IDLETIME', key) "
+                    + "if not idle then "
+                    + "for _ = 1, 4 do result[#result + 1] = -1 end "
+                    + "else "
+                    + "local size = redis.call('ZCARD', key) "
+                    + "local bytes = redis.pcall('MEMORY', 'USAGE', key) "
+                    + "if type(bytes) ~= 'number' then "
+                    + "local sample, length = redis.call('ZRANGE', key, 0, 15), 0 "
+                    + "for _, member in ipairs(sample) do length = length + #member end "
+                    + "bytes = #key + 64 + (#sample > 0 and math.floor(size * (length / #sample + 16)) or 0) "
+                    + "end "
+                    + "result[#result + 1] = idle "
+                    + "result[#result + 1] = redis.call('PTTL', key) "
+                    + "result[#result + 1] = size "
+                    + "result[#result + 1] = bytes "
+                    + "end "
+                    + "end "
+                    + "return result", List.class);
+
+    /**
+     * ARGV[1] 为保留条数（0 不裁剪），ARGV[i + 1] 为 KEYS[i] 的过期毫秒（0 不设置）；
+     * 按KEY依次返回 是否设置了过期时间、裁剪条数
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> APPLY = RedisScript.of(
+            "local keep = tonumber(ARGV[1]) "
+                    + "local result = {} "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "local ms, expired, removed = tonumber(ARGV[i + 1]), 0, 0 "
+                    + "if ms > 0 and redis.call('PTTL', key) == -1 then "
+                    + "redis.call('PEXPIRE', key, ms) expired = 1 "
+                    + "end "
+                    + "if keep > 0 then removed = redis.call('ZREMRANGEBYRANK', key, 0, -keep - 1) end "
+                    + "result[#result + 1] = expired "
+                    + "result[#result + 1] = removed "
+                    + "end "
+                    + "return result", List.class);
+
+    @Autowired
+    private ExpiryProperties expiryProperties;
+
+    @Autowired
+    private RedisGuard guard;
+
+    private String cursor = CURSOR_START;
+
+    private volatile long nextPassAt;
+
+    private volatile Pass current = new Pass();
+
+    private volatile Pass last;
+
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * 执行若干个批次，fixedDelay 保证同一时刻只有一次调度在执行
+     */
+    @Scheduled(fixedDelayString = "${reader.expiry.sweep.interval-ms:1000}")
+    public void tick() {
+        ExpiryProperties.Sweep config = expiryProperties.getSweep();
+        if (!config.isEnabled() || System.currentTimeMillis() < nextPassAt) {
+            return;
+        }
+        try {
+            for (int i = 0; i < config.getBatchesPerTick(); i++) {
+                if (!step(config)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.warn("[过期清理] 批次失败，下次调度从同一游标重试：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一个批次
+     *
+     * @param config 配置
+     * @return 本轮是否还有后续批次
+     */
+    private boolean step(ExpiryProperties.Sweep config) {
+        Duration timeout = config.getTimeout();
+        List<?> page = guard.write("sweep.scan", t -> t.execute(SCAN, Collections.<String>emptyList(),
+                Arrays.asList(cursor, PATTERN, String.valueOf(config.getBatchSize()))).next())
+                .block(timeout);
+
+        List<String> carts = new ArrayList<>();
+        List<String> histories = new ArrayList<>();
+        for (int i = 1; i < page.size(); i++) {
+            String key = page.get(i).toString();
+            if (key.startsWith(CART_PREFIX)) {
+                carts.add(key);
+            } else if (key.startsWith(HISTORY_PREFIX)) {
+                histories.add(key);
+            }
+        }
+        sweep(carts, expiryProperties.getCartTtl(), 0, timeout);
+        sweep(histories, expiryProperties.getHistoryTtl(), expiryProperties.getHistoryMaxEntries(), timeout);
+
+        cursor = page.get(0).toString();
+        if (!CURSOR_START.equals(cursor)) {
+            return true;
+        }
+        current.millis = System.currentTimeMillis() - current.startedAt;
+        last = current;
+        current = new Pass();
+        nextPassAt = System.currentTimeMillis() + config.getPassInterval().toMillis();
+        log.info("[过期清理] 本轮完成：" + last.toMap());
+        return false;
+    }
+
+    private void sweep(List<String> keys, Duration ttl, int keep, Duration timeout) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<?> info = guard.write("sweep.inspect", t -> t.execute(INSPECT, keys, Collections.emptyList()).next())
+                .block(timeout);
+
+        long ttlMillis = ttl.toMillis();
+        List<String> args = new ArrayList<>(keys.size() + 1);
+        args.add(String.valueOf(keep));
+        boolean[] idleOut = new boolean[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            long idle = number(info, i * 4);
+            long pttl = number(info, i * 4 + 1);
+            long expireIn = 0;
+            if (idle >= 0 && pttl == -1) {
+                // 已闲置超过过期时间的立即过期
+                idleOut[i] = idle * 1000 >= ttlMillis;
+                expireIn = idleOut[i] ? 1 : ttlMillis - idle * 1000;
+            }
+            args.add(String.valueOf(expireIn));
+        }
+
+        List<?> applied = guard.write("sweep.apply", t -> t.execute(APPLY, keys, args).next())
+                .block(timeout);
+
+        for (int i = 0; i < keys.size(); i++) {
+            long size = number(info, i * 4 + 2);
+            long bytes = number(info, i * 4 + 3);
+            long removed = number(applied, i * 2 + 1);
+            current.scanned++;
+            if (number(applied, i * 2) == 1) {
+                if (idleOut[i]) {
+                    current.expiredKeys++;
+                    current.reclaimedBytes += bytes;
+                    continue;
+                }
+                current.ttlAssigned++;
+            }
+            if (removed > 0 && size > 0) {
+                current.trimmedEntries += removed;
+                current.reclaimedBytes += bytes * removed / size;
+            }
+        }
+    }
+
+    private static long number(List<?> values, int index) {
+        return ((Number) values.get(index)).longValue();
+    }
+
+    /**
+     * 清理进度与最近一轮的结果
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", expiryProperties.getSweep().isEnabled());
+        result.put("current", current.toMap());
+        result.put("nextPassAt", nextPassAt);
+        Pass pass = last;
+        result.put("last", pass == null ? null : pass.toMap());
+        result.put("failures", failures.get());
+        return result;
+    }
+
+    /**
+     * 一轮清理的统计，只由调度线程写入，读取时允许看到稍旧的值
+     */
+    private static final class Pass {
+
+        private final long startedAt = System.currentTimeMillis();
+
+        private long millis;
+
+        private long scanned;
+
+        private long ttlAssigned;
+
+        private long expiredKeys;
+
+        private long trimmedEntries;
+
+        private long reclaimedBytes;
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startedAt", startedAt);
+            map.put("millis", millis);
+            map.put("scanned", scanned);
+            map.put("ttlAssigned", ttlAssigned);
+            map.put("expiredKeys", expiredKeys);
+            map.put("trimmedEntries", trimmedEntries);
+            map.put("reclaimedBytes", reclaimedBytes);
+            return map;
+        }
+    }
+}
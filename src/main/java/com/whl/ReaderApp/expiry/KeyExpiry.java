@@ -0,0 +1,79 @@
+package com.whl.ReaderApp.expiry;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.whl.ReaderApp.config.ExpiryProperties;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按帐号存放的KEY在访问时刷新过期时间，闲置超过过期时间后由Redis自动删除
+ * <p>
+ * 写入时与写命令一起发送 EXPIRE；读取时不等待结果，且同一个KEY在 touchInterval 内只刷新一次，
+ * 读多写少的KEY不会因此多出一倍命令。过期时间远大于刷新间隔，少刷新几次不影响结果。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class KeyExpiry {
+
+    @Autowired
+    private ExpiryProperties expiryProperties;
+
+    @Autowired
+    private RedisGuard guard;
+
+    private Cache<String, Boolean> touched;
+
+    @PostConstruct
+    public void init() {
+        touched = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(expiryProperties.getTouchInterval().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * 写入时刷新过期时间
+     *
+     * @param op  操作名
+     * @param key KEY
+     * @param ttl 过期时间
+     * @return 是否设置成功，未启用时为 true
+     */
+    public Mono<Boolean> refresh(String op, String key, Duration ttl) {
+        if (!expiryProperties.isEnabled()) {
+            return Mono.just(true);
+        }
+        touched.put(key, Boolean.TRUE);
+        return guard.write(op, t -> t.expire(key, ttl));
+    }
+
+    /**
+     * 读取时刷新过期时间，不等待结果，失败时忽略
+     *
+     * @param op  操作名
+     * @param key KEY
+     * @param ttl 过期时间
+     */
+    public void touch(String op, String key, Duration ttl) {
+        if (!expiryProperties.isEnabled() || touched.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        guard.write(op, t -> t.expire(key, ttl))
+                .subscribe(null, e -> {
+                    touched.invalidate(key);
+                    log.debug("刷新过期时间失败 {}：{}", key, e.toString());
+                });
+    }
+}
@@ -0,0 +1,142 @@
+package com.whl.ReaderApp.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器
+ * <p>
+ * 按预期元素数 n 与误判率 p 取位数 m = -n·ln(p) / (ln2)²、哈希数 k = m/n·ln2。
+ * 一次 64 位哈希拆成两个值，第 i 个位置取 h1 + i·h2（Kirsch-Mitzenmacher），不需要 k 次独立哈希。
+ * 位数组为 AtomicLongArray，置位用 CAS，读写均无锁。
+ *
+ * @author whl
+ */
+public final class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final long expectedInsertions;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bits, int hashes, long expectedInsertions) {
+        this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        this.bits = (long) words.length() << 6;
+        this.hashes = hashes;
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * @param expectedInsertions 预期元素数
+     * @param fpp                预期元素数下的误判率
+     * @return 过滤器
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new BloomFilter(m, k, n);
+    }
+
+    /**
+     * 加入元素
+     *
+     * @param value 元素
+     */
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = fmix(h1 + GOLDEN);
+        for (int i = 0; i < hashes; i++) {
+            set(Math.floorMod(h1 + i * h2, bits));
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * 判断元素是否可能存在，返回 false 时一定不存在
+     *
+     * @param value 元素
+     * @return 是否可能存在
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = fmix(h1 + GOLDEN);
+        for (int i = 0; i < hashes; i++) {
+            long index = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void set(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long old;
+        do {
+            old = words.get(word);
+            if ((old & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(word, old, old | mask));
+    }
+
+    /**
+     * 按当前元素数估算的误判率 (1 - e^(-kn/m))^k，元素数超过预期后随之上升
+     *
+     * @return 误判率
+     */
+    public double expectedFpp() {
+        return Math.pow(1 - Math.exp(-hashes * (double) insertions.get() / bits), hashes);
+    }
+
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * FNV-1a 后再经 MurmurHash3 的 fmix64 打散
+     */
+    private static long hash(String value) {
+        long h = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+        return fmix(h);
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,146 @@
+package com.whl.ReaderApp.filter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一类KEY的存在性过滤器，可在使用中重建
+ * <p>
+ * 第一次构建完成前对所有KEY回答"可能存在"。重建期间新增的KEY同时写入新旧两个过滤器，
+ * 新KEY在存储写入成功后才加入过滤器，重建开始时已写入的KEY一定会被遍历到，因此不会漏掉。
+ *
+ * @author whl
+ */
+public final class ExistenceFilter {
+
+    private final String name;
+
+    private volatile BloomFilter current;
+
+    private volatile BloomFilter building;
+
+    private volatile long builtAt;
+
+    private volatile long buildMillis;
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private final AtomicLong negatives = new AtomicLong();
+
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public ExistenceFilter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 判断KEY是否可能存在，返回 false 时可以不再查询存储
+     *
+     * @param key KEY
+     * @return 是否可能存在
+     */
+    public boolean mightContain(String key) {
+        BloomFilter filter = current;
+        if (filter == null) {
+            return true;
+        }
+        lookups.incrementAndGet();
+        if (filter.mightContain(key)) {
+            return true;
+        }
+        negatives.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 存储写入成功后加入KEY
+     *
+     * @param key KEY
+     */
+    public void put(String key) {
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(key);
+        }
+    }
+
+    /**
+     * 过滤器判断可能存在、查询存储后实际不存在时调用，用于统计实际误判率
+     *
+     * @param count 误判数量
+     */
+    public void falsePositive(long count) {
+        if (current != null && count > 0) {
+            falsePositives.addAndGet(count);
+        }
+    }
+
+    /**
+     * 遍历全部KEY重建，完成后替换当前过滤器
+     *
+     * @param keys               全部KEY
+     * @param expectedInsertions 预期元素数，小于当前元素数的两倍时按两倍计算
+     * @param fpp                误判率
+     * @return 元素数
+     */
+    public Mono<Long> rebuild(Flux<String> keys, long expectedInsertions, double fpp) {
+        return Mono.defer(() -> {
+            BloomFilter old = current;
+            long expected = Math.max(expectedInsertions, old == null ? 0 : old.getInsertions() * 2);
+            BloomFilter next = BloomFilter.create(expected, fpp);
+            long start = System.currentTimeMillis();
+            building = next;
+            return keys.doOnNext(next::put)
+                    .count()
+                    .doOnSuccess(n -> {
+                        current = next;
+                        builtAt = System.currentTimeMillis();
+                        buildMillis = builtAt - start;
+                    })
+                    .doFinally(signal -> building = null);
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 容量与误判率指标
+     * <p>
+     * expectedFpp 为按当前元素数估算的误判率；observedFpp 为实际误判率：误判次数 / (误判次数 + 过滤掉的次数)，
+     * 即所有实际不存在的KEY中被判断为可能存在的比例。
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        BloomFilter filter = current;
+        result.put("ready", filter != null);
+        if (filter != null) {
+            result.put("insertions", filter.getInsertions());
+            result.put("expectedInsertions", filter.getExpectedInsertions());
+            result.put("bytes", filter.getBits() / 8);
+            result.put("hashes", filter.getHashes());
+            result.put("expectedFpp", filter.expectedFpp());
+        }
+        long fp = falsePositives.get();
+        long tn = negatives.get();
+        result.put("lookups", lookups.get());
+        result.put("negatives", tn);
+        result.put("falsePositives", fp);
+        result.put("observedFpp", fp + tn == 0 ? 0.0 : (double) fp / (fp + tn));
+        result.put("builtAt", builtAt);
+        result.put("buildMillis", buildMillis);
+        result.put("rebuilding", building != null);
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.whl.ReaderApp.filter;
+
+import com.whl.ReaderApp.config.FilterProperties;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 帐号与书籍子KEY的存在性过滤器
+ * <p>
+ * 大部分登录失败与书籍查询落空的请求查询的是不存在的KEY，过滤器判断不存在时直接返回，不再访问存储。
+ * 过滤器保存在本机内存中，启动后立即异步构建，之后按 rebuild-interval-ms 定时重建以回收误判率并按实际数量扩容。
+ * <p>
+ * 多实例部署时，其它实例新增的帐号和书籍要等本机下次重建后才会加入过滤器，在此之前本机会把它们判断为不存在
+ * （登录返回"账号不存在"），因此默认关闭，只应在单实例部署时开启。注册与新增书籍使用 HSETNX 写入，
+ * 过滤器判断错误也不会覆盖已有数据。重建时的 HSCAN 只发往主节点。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+public class ExistenceFilters {
+
+    private static final int RETRIES = 3;
+
+    @Autowired
+    private FilterProperties filterProperties;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ExistenceFilter accounts = new ExistenceFilter("accounts");
+
+    private final ExistenceFilter books = new ExistenceFilter("books");
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 定时重建，第一次在启动时执行；重建在后台进行，不占用调度线程
+     */
+    @Scheduled(fixedDelayString = "${reader.filter.rebuild-interval-ms:600000}")
+    public void refresh() {
+        rebuild().subscribe(null, e -> log.warn("[存在性过滤器] 重建失败，继续使用旧的过滤器：" + e.getMessage()));
+    }
+
+    /**
+     * 重建全部过滤器，已有重建在进行时直接返回
+     *
+     * @return 完成信号
+     */
+    public Mono<Void> rebuild() {
+        if (!filterProperties.isEnabled() || !rebuilding.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        int batchSize = filterProperties.getScanBatchSize();
+        FilterProperties.Spec accountSpec = filterProperties.getAccounts();
+        FilterProperties.Spec bookSpec = filterProperties.getBooks();
+
+        return Mono.when(
+                accounts.rebuild(userRepository.accounts(batchSize), accountSpec.getExpectedInsertions(), accountSpec.getFpp())
+                        .doOnNext(n -> log.info("[存在性过滤器] 帐号 " + n + " 个")),
+                books.rebuild(bookRepository.childKeys(batchSize), bookSpec.getExpectedInsertions(), bookSpec.getFpp())
+                        .doOnNext(n -> log.info("[存在性过滤器] 书籍 " + n + " 本")))
+                // 启动时存储连接尚未建立或暂时不可用，稍后重试，不必等到下次定时重建
+                .retryWhen(errors -> errors.zipWith(Flux.range(1, RETRIES), (e, attempt) -> attempt)
+                        .concatMap(attempt -> Mono.delay(Duration.ofSeconds(attempt))))
+                .doFinally(signal -> rebuilding.set(false));
+    }
+
+    public ExistenceFilter getAccounts() {
+        return accounts;
+    }
+
+    public ExistenceFilter getBooks() {
+        return books;
+    }
+
+    /**
+     * 各过滤器指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", filterProperties.isEnabled());
+        result.put(accounts.getName(), accounts.stats());
+        result.put(books.getName(), books.stats());
+        return result;
+    }
+}
@@ -0,0 +1,259 @@
+package com.whl.ReaderApp.hotkey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.whl.ReaderApp.config.HotKeyProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 热点KEY统计与本地缓存
+ * <p>
+ * 每次访问按采样率计入当前时间窗口的 {@link SpaceSaving}，时间窗口定时轮转，最近若干个窗口合并后即为滑动窗口内的统计。
+ * 轮转时按采样率与窗口长度把计数换算为访问频率，达到阈值的KEY标记为热点，之后的访问先查本地缓存，
+ * 未命中时照常读取存储并写入缓存。缓存有效期很短，热点消退后随标记一起失效。
+ * <p>
+ * 书目中的全部书籍都在同一个 Hash 里，集群部署时落在同一个分片，热门书籍的读取由本地缓存吸收后才不会集中到该分片。
+ *
+ * @author whl
+ */
+@Component
+public class HotKeyTracker {
+
+    /**
+     * 书籍，KEY为子KEY
+     */
+    public static final String BOOK = "book";
+
+    /**
+     * 购物车，KEY为帐号
+     */
+    public static final String CART = "cart";
+
+    /**
+     * 搜索，KEY为关键字
+     */
+    public static final String SEARCH = "search";
+
+    private static final char SEPARATOR = ':';
+
+    @Autowired
+    private HotKeyProperties hotKeyProperties;
+
+    private final Object lock = new Object();
+
+    private SpaceSaving[] windows;
+
+    private int current;
+
+    private Cache<String, Object> local;
+
+    private volatile Map<String, Set<String>> hot = Collections.emptyMap();
+
+    private volatile List<Map<String, Object>> top = Collections.emptyList();
+
+    private volatile long sampled;
+
+    /**
+     * 不参与统计的KEY（各类别通用），如启动预热使用的账号与关键词
+     */
+    private volatile Set<String> ignored = Collections.emptySet();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        windows = new SpaceSaving[Math.max(hotKeyProperties.getWindows(), 1)];
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new SpaceSaving(hotKeyProperties.getCapacity());
+        }
+        local = Caffeine.newBuilder()
+                .maximumSize(hotKeyProperties.getMaximumSize())
+                .expireAfterWrite(hotKeyProperties.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param namespace 类别
+     * @param key       KEY
+     * @return 是否为热点
+     */
+    public boolean touch(String namespace, String key) {
+        if (!hotKeyProperties.isEnabled() || ignored.contains(key)) {
+            return false;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < hotKeyProperties.getSampleRate()) {
+            String id = namespace + SEPARATOR + key;
+            synchronized (lock) {
+                windows[current].offer(id);
+            }
+        }
+        Set<String> keys = hot.get(namespace);
+        return keys != null && keys.contains(key);
+    }
+
+    /**
+     * 设置不参与统计的KEY，替换之前的设置
+     *
+     * @param keys KEY
+     */
+    public void ignore(Set<String> keys) {
+        ignored = new HashSet<>(keys);
+    }
+
+    /**
+     * 记录访问，热点KEY经本地缓存读取
+     *
+     * @param namespace 类别
+     * @param key       KEY
+     * @param loader    读取存储
+     * @param <T>       值类型
+     * @return 值
+     */
+    public <T> Mono<T> read(String namespace, String key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> touch(namespace, key) ? cached(namespace, key, loader) : loader.get());
+    }
+
+    /**
+     * 经本地缓存读取，不记录访问
+     *
+     * @param namespace 类别
+     * @param key       缓存KEY
+     * @param loader    读取存储
+     * @param <T>       值类型
+     * @return 值
+     */
+    public <T> Mono<T> cached(String namespace, String key, Supplier<Mono<T>> loader) {
+        T value = peek(namespace, key);
+        if (value != null) {
+            return Mono.just(value);
+        }
+        return loader.get().doOnNext(v -> put(namespace, key, v));
+    }
+
+    /**
+     * 查询本地缓存
+     *
+     * @param namespace 类别
+     * @param key       缓存KEY
+     * @param <T>       值类型
+     * @return 值，未命中时为空
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(String namespace, String key) {
+        Object value = local.getIfPresent(namespace + SEPARATOR + key);
+        (value == null ? misses : hits).incrementAndGet();
+        return (T) value;
+    }
+
+    /**
+     * 写入本地缓存
+     *
+     * @param namespace 类别
+     * @param key       缓存KEY
+     * @param value     值
+     */
+    public void put(String namespace, String key, Object value) {
+        local.put(namespace + SEPARATOR + key, value);
+    }
+
+    /**
+     * 合并滑动窗口内的统计，重新标记热点，再开始新的时间窗口
+     */
+    @Scheduled(fixedRateString = "${reader.hotkey.window-ms:10000}")
+    public void rotate() {
+        if (!hotKeyProperties.isEnabled()) {
+            return;
+        }
+        Map<String, SpaceSaving.Counter> merged = new HashMap<>();
+        long total = 0;
+        synchronized (lock) {
+            for (SpaceSaving window : windows) {
+                total += window.total();
+                for (SpaceSaving.Counter c : window.counters()) {
+                    SpaceSaving.Counter m = merged.putIfAbsent(c.key, c);
+                    if (m != null) {
+                        m.count += c.count;
+                        m.error += c.error;
+                    }
+                }
+            }
+            current = (current + 1) % windows.length;
+            windows[current] = new SpaceSaving(hotKeyProperties.getCapacity());
+        }
+
+        // 计数换算为每秒访问次数
+        double scale = 1000.0 / hotKeyProperties.getSampleRate() / (hotKeyProperties.getWindowMs() * windows.length);
+        Map<String, Set<String>> promoted = new HashMap<>();
+        List<SpaceSaving.Counter> counters = new ArrayList<>(merged.values());
+        counters.sort((a, b) -> Long.compare(b.count, a.count));
+        List<Map<String, Object>> hottest = new ArrayList<>();
+        for (SpaceSaving.Counter c : counters) {
+            double qps = c.count * scale;
+            boolean isHot = qps >= hotKeyProperties.getThreshold();
+            int at = c.key.indexOf(SEPARATOR);
+            String namespace = c.key.substring(0, at);
+            String key = c.key.substring(at + 1);
+            if (isHot) {
+                promoted.computeIfAbsent(namespace, k -> new HashSet<>()).add(key);
+            }
+            if (hottest.size() < hotKeyProperties.getTopSize()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("namespace", namespace);
+                item.put("key", key);
+                item.put("qps", Math.round(qps * 10) / 10.0);
+                item.put("count", c.count);
+                item.put("error", c.error);
+                item.put("hot", isHot);
+                hottest.add(item);
+            }
+        }
+        hot = promoted;
+        top = hottest;
+        sampled = total;
+    }
+
+    /**
+     * 统计指标与当前最热的KEY
+     * <p>
+     * count 为滑动窗口内的采样次数，真实采样次数不低于 count - error。
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", hotKeyProperties.isEnabled());
+        result.put("sampleRate", hotKeyProperties.getSampleRate());
+        result.put("windowSeconds", hotKeyProperties.getWindowMs() * windows.length / 1000);
+        result.put("threshold", hotKeyProperties.getThreshold());
+        result.put("sampled", sampled);
+        Map<String, Integer> promoted = new LinkedHashMap<>();
+        hot.forEach((namespace, keys) -> promoted.put(namespace, keys.size()));
+        result.put("promoted", promoted);
+        result.put("localSize", local.estimatedSize());
+        result.put("localHits", hits.get());
+        result.put("localMisses", misses.get());
+        result.put("top", top);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.whl.ReaderApp.hotkey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 频繁项统计，只保留 capacity 个计数器
+ * <p>
+ * 新KEY到来且计数器已满时，替换计数最小的计数器，新计数为最小值加一，并把原最小值记为误差。
+ * 任一KEY的真实次数落在 [count - error, count] 之间，真实次数超过 N / capacity 的KEY一定被保留。
+ * 替换时线性查找最小计数器，capacity 为数百、调用方又已采样时开销可以忽略。
+ * <p>
+ * 非线程安全，由调用方加锁。
+ *
+ * @author whl
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    private long total;
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.counters = new HashMap<>(this.capacity * 2);
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key KEY
+     */
+    void offer(String key) {
+        total++;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(key, 1, 0));
+            return;
+        }
+        Counter min = null;
+        for (Counter c : counters.values()) {
+            if (min == null || c.count < min.count) {
+                min = c;
+            }
+        }
+        counters.remove(min.key);
+        counters.put(key, new Counter(key, min.count + 1, min.count));
+    }
+
+    /**
+     * 计入的访问总数
+     *
+     * @return 总数
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * 全部计数器的快照
+     *
+     * @return 计数器
+     */
+    List<Counter> counters() {
+        List<Counter> result = new ArrayList<>(counters.size());
+        for (Counter c : counters.values()) {
+            result.add(new Counter(c.key, c.count, c.error));
+        }
+        return result;
+    }
+
+    /**
+     * 计数器
+     */
+    static final class Counter {
+
+        final String key;
+
+        long count;
+
+        long error;
+
+        Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.whl.ReaderApp.recommend;
+
+import com.whl.ReaderApp.config.RecommendProperties;
+import com.whl.ReaderApp.domain.Book;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.repository.NeighborRepository;
+import com.whl.ReaderApp.search.TopK;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 购物车共现推荐
+ * <p>
+ * 加入购物车时把新书与购物车中已有的书两两配对，权重先在内存中合并，再定时按书分批写入各自的邻居集合，
+ * 每本书一次脚本调用完成累加与裁剪，邻居集合只保留权重最高的 capacity 个。
+ * <p>
+ * 衰减采用前向衰减：时刻 t 的一次共现记为 2^((t - L) / halfLife)，L 为固定基准时间。越新的共现权重越大，
+ * 任意时刻按权重排序都等价于按指数衰减后的次数排序，而旧数据无需改写。权重随时间指数增长，
+ * 半衰期 30 天时 double 可容纳数十年，不会溢出。
+ * <p>
+ * 查询只读取 K 个邻居：单本书一次 ZREVRANGE，整个购物车为每个条目各一次（流水线发送）再在内存合并。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+public class CoOccurrenceEngine {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final long LANDMARK = Instant.parse("2018-01-01T00:00:00Z").toEpochMilli();
+
+    @Autowired
+    private RecommendProperties recommendProperties;
+
+    @Autowired
+    private NeighborRepository neighborRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final Object lock = new Object();
+
+    private Map<String, Map<String, Double>> pending = new HashMap<>();
+
+    private int pendingSize;
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong flushed = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile long lastFlushMillis;
+
+    /**
+     * 记录一次加入购物车产生的共现
+     *
+     * @param book   新加入的书籍子KEY
+     * @param others 购物车中已有的书籍子KEY
+     */
+    public void record(String book, Collection<String> others) {
+        if (others.isEmpty()) {
+            return;
+        }
+        double weight = weight(System.currentTimeMillis());
+        synchronized (lock) {
+            for (String other : others) {
+                if (pendingSize >= recommendProperties.getMaxPending()) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                add(book, other, weight);
+                add(other, book, weight);
+                recorded.incrementAndGet();
+            }
+        }
+    }
+
+    private void add(String book, String neighbor, double weight) {
+        Map<String, Double> deltas = pending.computeIfAbsent(book, k -> new HashMap<>());
+        Double old = deltas.get(neighbor);
+        if (old == null) {
+            deltas.put(neighbor, weight);
+            pendingSize++;
+        } else {
+            deltas.put(neighbor, old + weight);
+        }
+    }
+
+    private double weight(long now) {
+        return Math.pow(2, (double) (now - LANDMARK) / recommendProperties.getHalfLife().toMillis());
+    }
+
+    /**
+     * 把缓冲的共现写入存储，写入失败的批次直接丢弃
+     */
+    @Scheduled(fixedDelayString = "${reader.recommend.flush-interval-ms:1000}")
+    public void flush() {
+        Map<String, Map<String, Double>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+            pendingSize = 0;
+        }
+
+        long start = System.nanoTime();
+        int capacity = recommendProperties.getCapacity();
+        try {
+            Flux.fromIterable(batch.entrySet())
+                    .flatMap(e -> neighborRepository.increment(e.getKey(), e.getValue(), capacity))
+                    .then()
+                    .block(TIMEOUT);
+            flushed.addAndGet(batch.size());
+            lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.warn("[共现推荐] 写入失败，丢弃 " + batch.size() + " 本书的增量：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 停机前写入剩余的缓冲
+     */
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * 与某本书最常一起购买的书籍
+     *
+     * @param book 书籍子KEY
+     * @param size 数量
+     * @return 书籍，按权重降序
+     */
+    public Flux<Book> recommend(String book, int size) {
+        return neighborRepository.top(book, size(size))
+                .map(ZSetOperations.TypedTuple::getValue)
+                .collectList()
+                .flatMapMany(bookRepository::findAll);
+    }
+
+    /**
+     * 按整个购物车推荐：合并各条目的邻居权重，排除已在购物车中的书籍
+     *
+     * @param cart 购物车中的书籍子KEY
+     * @param size 数量
+     * @return 书籍，按合并后的权重降序
+     */
+    public Flux<Book> recommend(List<String> cart, int size) {
+        int k = size(size);
+        Set<String> exclude = new HashSet<>(cart);
+
+        return Flux.fromIterable(cart)
+                .take(recommendProperties.getMaxCartSeeds())
+                .flatMap(book -> neighborRepository.top(book, k))
+                .filter(tuple -> !exclude.contains(tuple.getValue()))
+                .collect(HashMap<String, Double>::new,
+                        (scores, tuple) -> scores.merge(tuple.getValue(), tuple.getScore(), Double::sum))
+                .map(scores -> {
+                    TopK<String> top = new TopK<>(k, Comparator.naturalOrder());
+                    scores.forEach(top::offer);
+                    return top.toSortedList();
+                })
+                .flatMapMany(bookRepository::findAll);
+    }
+
+    private int size(int size) {
+        return Math.min(Math.max(size, 1), recommendProperties.getCapacity());
+    }
+
+    /**
+     * 缓冲与写入指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (lock) {
+            result.put("pendingBooks", pending.size());
+            result.put("pendingEntries", pendingSize);
+        }
+        result.put("recorded", recorded.get());
+        result.put("dropped", dropped.get());
+        result.put("flushedBooks", flushed.get());
+        result.put("failures", failures.get());
+        result.put("lastFlushMillis", lastFlushMillis);
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package com.whl.ReaderApp.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * 作者索引存储：作者到书籍子KEY集合
+ *
+ * @author whl
+ */
+public interface AuthorIndexRepository {
+
+    /**
+     * 添加索引
+     *
+     * @param author    作者
+     * @param childKeys 书籍子KEY
+     * @return 新增数量
+     */
+    Mono<Long> add(String author, Collection<String> childKeys);
+
+    /**
+     * 查询作者的全部书籍子KEY
+     *
+     * @param author 作者
+     * @return 书籍子KEY
+     */
+    Flux<String> find(String author);
+}
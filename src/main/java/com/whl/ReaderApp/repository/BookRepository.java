@@ -0,0 +1,85 @@
+package com.whl.ReaderApp.repository;
+
+import com.whl.ReaderApp.domain.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * 书籍存储
+ *
+ * @author whl
+ */
+public interface BookRepository {
+
+    /**
+     * 判断书籍是否存在
+     *
+     * @param childKey 子KEY
+     * @return 是否存在
+     */
+    Mono<Boolean> exists(String childKey);
+
+    /**
+     * 保存书籍，子KEY已存在时不覆盖
+     *
+     * @param childKey 子KEY
+     * @param book     书籍实体
+     * @return 是否成功
+     */
+    Mono<Boolean> save(String childKey, Book book);
+
+    /**
+     * 查询书籍
+     *
+     * @param childKey 子KEY
+     * @return 书籍，不存在时为空
+     */
+    Mono<Book> findOne(String childKey);
+
+    /**
+     * 查询全部书籍
+     *
+     * @return 书籍流
+     */
+    Flux<Book> findAll();
+
+    /**
+     * 按子KEY批量查询书籍，一次往返
+     *
+     * @param childKeys 子KEY
+     * @return 书籍，按入参顺序，不存在的跳过
+     */
+    Flux<Book> findAll(Collection<String> childKeys);
+
+    /**
+     * 按游标分批遍历全部书籍，下游取消订阅后不再读取后续批次
+     *
+     * @param batchSize 每批条数
+     * @return 书籍流
+     */
+    Flux<Book> scan(int batchSize);
+
+    /**
+     * 按游标分批遍历全部书籍子KEY，不解析书籍内容
+     *
+     * @param batchSize 每批条数
+     * @return 子KEY流
+     */
+    Flux<String> childKeys(int batchSize);
+
+    /**
+     * 查询书目版本号，每次新增书籍后单调递增
+     *
+     * @return 版本号
+     */
+    Mono<Long> version();
+
+    /**
+     * 递增书目版本号
+     *
+     * @return 新版本号
+     */
+    Mono<Long> incrementVersion();
+}
@@ -0,0 +1,48 @@
+package com.whl.ReaderApp.repository;
+
+import org.springframework.data.redis.core.ZSetOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 购物车存储，每个帐号一个按数量排序的集合
+ *
+ * @author whl
+ */
+public interface CartRepository {
+
+    /**
+     * 添加或更新购物车条目
+     *
+     * @param acc   帐号
+     * @param item  条目（书籍子KEY）
+     * @param score 数量
+     * @return 是否为新增条目
+     */
+    Mono<Boolean> add(String acc, String item, double score);
+
+    /**
+     * 删除购物车条目
+     *
+     * @param acc  帐号
+     * @param item 条目
+     * @return 删除数量
+     */
+    Mono<Long> remove(String acc, String item);
+
+    /**
+     * 查询购物车全部条目，按数量升序
+     *
+     * @param acc 帐号
+     * @return 条目及数量
+     */
+    Flux<ZSetOperations.TypedTuple<String>> rangeWithScores(String acc);
+
+    /**
+     * 查询购物车版本号，每次写入后递增，清空后也不会回退
+     *
+     * @param acc 帐号
+     * @return 版本号
+     */
+    Mono<Long> version(String acc);
+}
@@ -0,0 +1,69 @@
+package com.whl.ReaderApp.repository;
+
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.domain.EventLogStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 书目变更事件日志，语义与 Redis Stream 消费组一致：
+ * 读取后的事件在确认前保持待确认状态，消费者重启后会重新投递，保证至少一次
+ *
+ * @author whl
+ */
+public interface CatalogEventLog {
+
+    /**
+     * 追加事件
+     *
+     * @param type     事件类型
+     * @param childKey 书籍子KEY
+     * @return 事件ID
+     */
+    Mono<String> append(String type, String childKey);
+
+    /**
+     * 创建消费组（已存在时忽略），新建的消费组从头开始消费
+     *
+     * @param group 消费组
+     * @return 完成信号
+     */
+    Mono<Void> createGroup(String group);
+
+    /**
+     * 读取一批事件：先返回该消费者已投递未确认的事件，没有时再读取新事件
+     *
+     * @param group    消费组
+     * @param consumer 消费者
+     * @param count    最大条数
+     * @return 事件
+     */
+    Flux<CatalogEvent> read(String group, String consumer, int count);
+
+    /**
+     * 确认事件已处理
+     *
+     * @param group 消费组
+     * @param ids   事件ID
+     * @return 确认数量
+     */
+    Mono<Long> ack(String group, List<String> ids);
+
+    /**
+     * 将消费组重置到日志开头，用于重放全部事件重建投影
+     *
+     * @param group 消费组
+     * @return 完成信号
+     */
+    Mono<Void> reset(String group);
+
+    /**
+     * 查询消费状态
+     *
+     * @param group 消费组
+     * @return 消费状态
+     */
+    Mono<EventLogStats> stats(String group);
+}
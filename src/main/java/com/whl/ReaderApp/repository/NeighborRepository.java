@@ -0,0 +1,34 @@
+package com.whl.ReaderApp.repository;
+
+import org.springframework.data.redis.core.ZSetOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 书籍共现邻居存储，每本书一个按共现权重排序的集合，只保留权重最高的若干个邻居
+ *
+ * @author whl
+ */
+public interface NeighborRepository {
+
+    /**
+     * 累加邻居权重并裁剪到容量
+     *
+     * @param book     书籍子KEY
+     * @param deltas   邻居子KEY到权重增量
+     * @param capacity 保留的邻居数量
+     * @return 完成信号
+     */
+    Mono<Void> increment(String book, Map<String, Double> deltas, int capacity);
+
+    /**
+     * 查询权重最高的邻居
+     *
+     * @param book 书籍子KEY
+     * @param size 数量
+     * @return 邻居及权重，按权重降序
+     */
+    Flux<ZSetOperations.TypedTuple<String>> top(String book, int size);
+}
@@ -0,0 +1,62 @@
+package com.whl.ReaderApp.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 搜索历史存储，每个帐号一个按时间排序的集合
+ *
+ * @author whl
+ */
+public interface SearchHistoryRepository {
+
+    /**
+     * 添加搜索关键词
+     *
+     * @param acc     帐号
+     * @param keyword 关键词
+     * @param score   时间戳
+     * @return 是否为新增关键词
+     */
+    Mono<Boolean> add(String acc, String keyword, double score);
+
+    /**
+     * 查询全部搜索历史，按时间升序
+     *
+     * @param acc 帐号
+     * @return 关键词
+     */
+    Flux<String> range(String acc);
+
+    /**
+     * 清空搜索历史
+     *
+     * @param acc 帐号
+     * @return 是否成功
+     */
+    Mono<Boolean> delete(String acc);
+
+    /**
+     * 累加全站关键词热度
+     *
+     * @param keyword 关键词
+     * @return 累加后的热度
+     */
+    Mono<Double> incrementTrending(String keyword);
+
+    /**
+     * 查询全站热门关键词
+     *
+     * @param size 数量
+     * @return 按热度降序的关键词
+     */
+    Flux<String> trending(int size);
+
+    /**
+     * 查询搜索历史版本号，每次写入后递增，清空后也不会回退
+     *
+     * @param acc 帐号
+     * @return 版本号
+     */
+    Mono<Long> version(String acc);
+}
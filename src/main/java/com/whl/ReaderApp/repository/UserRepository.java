@@ -0,0 +1,53 @@
+package com.whl.ReaderApp.repository;
+
+import com.whl.ReaderApp.domain.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 用户存储
+ *
+ * @author whl
+ */
+public interface UserRepository {
+
+    /**
+     * 判断账号是否存在
+     *
+     * @param account 帐号
+     * @return 是否存在
+     */
+    Mono<Boolean> exists(String account);
+
+    /**
+     * 保存用户，帐号已存在时不覆盖
+     *
+     * @param user 用户实体
+     * @return 是否成功，帐号已存在时为 false
+     */
+    Mono<Boolean> save(User user);
+
+    /**
+     * 覆盖已有用户
+     *
+     * @param user 用户实体
+     * @return 是否为新增
+     */
+    Mono<Boolean> update(User user);
+
+    /**
+     * 查询用户
+     *
+     * @param account 帐号
+     * @return 用户，不存在时为空
+     */
+    Mono<User> findOne(String account);
+
+    /**
+     * 按游标分批遍历全部帐号
+     *
+     * @param batchSize 每批条数
+     * @return 帐号流
+     */
+    Flux<String> accounts(int batchSize);
+}
@@ -0,0 +1,41 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.repository.AuthorIndexRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌内存作者索引
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryAuthorIndexRepository implements AuthorIndexRepository {
+
+    private final ConcurrentHashMap<String, Set<String>> index = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Long> add(String author, Collection<String> childKeys) {
+        Set<String> keys = index.computeIfAbsent(author, k -> ConcurrentHashMap.newKeySet());
+        long added = 0;
+        for (String childKey : childKeys) {
+            if (keys.add(childKey)) {
+                added++;
+            }
+        }
+        return Mono.just(added);
+    }
+
+    @Override
+    public Flux<String> find(String author) {
+        Set<String> keys = index.get(author);
+        return keys == null ? Flux.empty() : Flux.fromIterable(keys);
+    }
+}
@@ -0,0 +1,83 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.domain.Book;
+import com.whl.ReaderApp.repository.BookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内嵌内存书籍存储，用于单机部署与测试
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryBookRepository implements BookRepository {
+
+    private final ConcurrentHashMap<String, Book> books = new ConcurrentHashMap<>();
+
+    /**
+     * 以启动时间为初始值，重启后版本号不与重启前重复
+     */
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Override
+    public Mono<Boolean> exists(String childKey) {
+        return Mono.just(books.containsKey(childKey));
+    }
+
+    @Override
+    public Mono<Boolean> save(String childKey, Book book) {
+        return Mono.fromSupplier(() -> books.putIfAbsent(childKey, book) == null);
+    }
+
+    @Override
+    public Mono<Book> findOne(String childKey) {
+        return Mono.justOrEmpty(books.get(childKey));
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return Flux.fromIterable(books.values());
+    }
+
+    @Override
+    public Flux<Book> scan(int batchSize) {
+        return Flux.fromIterable(books.values());
+    }
+
+    @Override
+    public Flux<String> childKeys(int batchSize) {
+        return Flux.defer(() -> Flux.fromIterable(books.keySet()));
+    }
+
+    @Override
+    public Flux<Book> findAll(Collection<String> childKeys) {
+        List<Book> result = new ArrayList<>(childKeys.size());
+        for (String childKey : childKeys) {
+            Book book = books.get(childKey);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return Flux.fromIterable(result);
+    }
+
+    @Override
+    public Mono<Long> version() {
+        return Mono.fromSupplier(version::get);
+    }
+
+    @Override
+    public Mono<Long> incrementVersion() {
+        return Mono.fromSupplier(version::incrementAndGet);
+    }
+}
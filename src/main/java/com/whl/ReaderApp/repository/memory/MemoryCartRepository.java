@@ -0,0 +1,59 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.repository.CartRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌内存购物车存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryCartRepository implements CartRepository {
+
+    private final ConcurrentHashMap<String, MemorySortedSet> carts = new ConcurrentHashMap<>();
+
+    private final MemoryVersions versions = new MemoryVersions();
+
+    @Override
+    public Mono<Boolean> add(String acc, String item, double score) {
+        return Mono.fromSupplier(() -> {
+            boolean added = carts.computeIfAbsent(acc, k -> new MemorySortedSet()).add(item, score);
+            versions.increment(acc);
+            return added;
+        });
+    }
+
+    @Override
+    public Mono<Long> remove(String acc, String item) {
+        return Mono.fromSupplier(() -> {
+            MemorySortedSet cart = carts.get(acc);
+            long removed = cart != null && cart.remove(item) ? 1L : 0L;
+            versions.increment(acc);
+            return removed;
+        });
+    }
+
+    @Override
+    public Flux<ZSetOperations.TypedTuple<String>> rangeWithScores(String acc) {
+        MemorySortedSet cart = carts.get(acc);
+        if (cart == null) {
+            return Flux.empty();
+        }
+        return Flux.fromIterable(cart.entries())
+                .map(e -> new DefaultTypedTuple<>(e.getMember(), e.getScore()));
+    }
+
+    @Override
+    public Mono<Long> version(String acc) {
+        return Mono.fromSupplier(() -> versions.get(acc));
+    }
+}
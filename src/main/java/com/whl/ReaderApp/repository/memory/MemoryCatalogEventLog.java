@@ -0,0 +1,165 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.config.CatalogStreamProperties;
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.domain.EventLogStats;
+import com.whl.ReaderApp.repository.CatalogEventLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内嵌内存书目变更事件日志，按序号保存事件，消费组记录最后投递位置与待确认事件
+ * <p>
+ * 与 XADD MAXLEN 一致，超过 maxLength 时丢弃最早的事件；已投递未确认的事件仍留在消费组中，但和 Redis 一样只剩ID，
+ * 再次投递时为 {@link CatalogEvent#TRIMMED}
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryCatalogEventLog implements CatalogEventLog {
+
+    private final ConcurrentSkipListMap<Long, CatalogEvent> log = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CatalogStreamProperties streamProperties;
+
+    @Override
+    public Mono<String> append(String type, String childKey) {
+        return Mono.fromSupplier(() -> {
+            long seq = sequence.incrementAndGet();
+            String id = System.currentTimeMillis() + "-" + seq;
+            log.put(seq, new CatalogEvent(id, type, childKey));
+            trim(seq);
+            return id;
+        });
+    }
+
+    /**
+     * 序号连续，只保留最近 maxLength 个序号内的事件
+     */
+    private void trim(long seq) {
+        long oldest = seq - streamProperties.getMaxLength();
+        Map.Entry<Long, CatalogEvent> first;
+        while ((first = log.firstEntry()) != null && first.getKey() <= oldest) {
+            log.remove(first.getKey());
+            CatalogEvent trimmed = new CatalogEvent(first.getValue().getId(), CatalogEvent.TRIMMED, null);
+            for (Group g : groups.values()) {
+                synchronized (g) {
+                    g.pending.replace(first.getKey(), trimmed);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Mono<Void> createGroup(String group) {
+        return Mono.fromRunnable(() -> groups.computeIfAbsent(group, g -> new Group()));
+    }
+
+    @Override
+    public Flux<CatalogEvent> read(String group, String consumer, int count) {
+        return Flux.defer(() -> Flux.fromIterable(readBatch(group, count)));
+    }
+
+    private List<CatalogEvent> readBatch(String group, int count) {
+        Group g = groups.get(group);
+        if (g == null) {
+            throw new IllegalStateException("NOGROUP " + group);
+        }
+        synchronized (g) {
+            List<CatalogEvent> events = new ArrayList<>(count);
+            if (!g.pending.isEmpty()) {
+                for (CatalogEvent event : g.pending.values()) {
+                    if (events.size() >= count) {
+                        break;
+                    }
+                    events.add(event);
+                }
+                return events;
+            }
+            for (Map.Entry<Long, CatalogEvent> e : log.tailMap(g.lastDelivered, false).entrySet()) {
+                if (events.size() >= count) {
+                    break;
+                }
+                g.pending.put(e.getKey(), e.getValue());
+                g.lastDelivered = e.getKey();
+                g.lastDeliveredId = e.getValue().getId();
+                events.add(e.getValue());
+            }
+            return events;
+        }
+    }
+
+    @Override
+    public Mono<Long> ack(String group, List<String> ids) {
+        return Mono.fromSupplier(() -> {
+            Group g = groups.get(group);
+            if (g == null) {
+                return 0L;
+            }
+            long acked = 0;
+            synchronized (g) {
+                for (String id : ids) {
+                    if (g.pending.remove(sequenceOf(id)) != null) {
+                        acked++;
+                    }
+                }
+            }
+            return acked;
+        });
+    }
+
+    @Override
+    public Mono<Void> reset(String group) {
+        return Mono.fromRunnable(() -> {
+            Group g = groups.get(group);
+            if (g != null) {
+                synchronized (g) {
+                    g.lastDelivered = 0;
+                    g.lastDeliveredId = "0-0";
+                }
+            }
+        });
+    }
+
+    @Override
+    public Mono<EventLogStats> stats(String group) {
+        return Mono.fromSupplier(() -> {
+            Map.Entry<Long, CatalogEvent> last = log.lastEntry();
+            String generated = last == null ? "0-0" : last.getValue().getId();
+            Group g = groups.get(group);
+            String delivered = g == null ? "0-0" : g.lastDeliveredId;
+            long pending = g == null ? 0 : g.pending.size();
+            return new EventLogStats((long) log.size(), generated, delivered, pending,
+                    EventLogStats.lagMillis(generated, delivered));
+        });
+    }
+
+    private static long sequenceOf(String id) {
+        return Long.parseLong(id.substring(id.indexOf('-') + 1));
+    }
+
+    private static final class Group {
+
+        private long lastDelivered;
+
+        private String lastDeliveredId = "0-0";
+
+        private final ConcurrentSkipListMap<Long, CatalogEvent> pending = new ConcurrentSkipListMap<>();
+    }
+}
@@ -0,0 +1,45 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.repository.NeighborRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌内存共现邻居存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryNeighborRepository implements NeighborRepository {
+
+    private final ConcurrentHashMap<String, MemorySortedSet> neighbors = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> increment(String book, Map<String, Double> deltas, int capacity) {
+        return Mono.fromRunnable(() -> {
+            MemorySortedSet set = neighbors.computeIfAbsent(book, k -> new MemorySortedSet());
+            deltas.forEach((neighbor, delta) -> set.increment(neighbor, delta));
+            set.trim(capacity);
+        });
+    }
+
+    @Override
+    public Flux<ZSetOperations.TypedTuple<String>> top(String book, int size) {
+        return Flux.defer(() -> {
+            MemorySortedSet set = neighbors.get(book);
+            if (set == null) {
+                return Flux.empty();
+            }
+            return Flux.fromIterable(set.top(size))
+                    .map(e -> new DefaultTypedTuple<>(e.getMember(), e.getScore()));
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.repository.SearchHistoryRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌内存搜索历史存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemorySearchHistoryRepository implements SearchHistoryRepository {
+
+    private final ConcurrentHashMap<String, MemorySortedSet> histories = new ConcurrentHashMap<>();
+
+    private final MemorySortedSet trending = new MemorySortedSet();
+
+    private final MemoryVersions versions = new MemoryVersions();
+
+    @Override
+    public Mono<Boolean> add(String acc, String keyword, double score) {
+        return Mono.fromSupplier(() -> {
+            boolean added = histories.computeIfAbsent(acc, k -> new MemorySortedSet()).add(keyword, score);
+            versions.increment(acc);
+            return added;
+        });
+    }
+
+    @Override
+    public Flux<String> range(String acc) {
+        MemorySortedSet history = histories.get(acc);
+        if (history == null) {
+            return Flux.empty();
+        }
+        return Flux.fromIterable(history.entries()).map(MemorySortedSet.Entry::getMember);
+    }
+
+    @Override
+    public Mono<Boolean> delete(String acc) {
+        return Mono.fromSupplier(() -> {
+            boolean removed = histories.remove(acc) != null;
+            versions.increment(acc);
+            return removed;
+        });
+    }
+
+    @Override
+    public Mono<Double> incrementTrending(String keyword) {
+        return Mono.fromSupplier(() -> trending.increment(keyword, 1));
+    }
+
+    @Override
+    public Flux<String> trending(int size) {
+        return Flux.defer(() -> Flux.fromIterable(trending.top(size))).map(MemorySortedSet.Entry::getMember);
+    }
+
+    @Override
+    public Mono<Long> version(String acc) {
+        return Mono.fromSupplier(() -> versions.get(acc));
+    }
+}
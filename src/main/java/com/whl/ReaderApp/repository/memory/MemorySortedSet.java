@@ -0,0 +1,174 @@
+package com.whl.ReaderApp.repository.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 内存有序集合，语义与Redis ZSet一致：按分数升序，分数相同按成员字典序
+ * <p>
+ * 成员到分数的映射与跳表中共用同一个 {@link Entry}，分数以 double 原始类型保存，避免装箱。
+ * 读操作无锁，写操作按集合加锁以保证映射与跳表一致。
+ *
+ * @author whl
+ */
+public final class MemorySortedSet {
+
+    private final ConcurrentHashMap<String, Entry> members = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<Entry> ordered = new ConcurrentSkipListSet<>();
+
+    /**
+     * 添加或更新成员
+     *
+     * @param member 成员
+     * @param score  分数
+     * @return 是否为新增成员
+     */
+    public synchronized boolean add(String member, double score) {
+        Entry entry = new Entry(member, score);
+        Entry old = members.put(member, entry);
+        if (old != null) {
+            ordered.remove(old);
+        }
+        ordered.add(entry);
+        return old == null;
+    }
+
+    /**
+     * 累加成员分数，成员不存在时以 0 为初始值
+     *
+     * @param member 成员
+     * @param delta  增量
+     * @return 累加后的分数
+     */
+    public synchronized double increment(String member, double delta) {
+        Entry old = members.get(member);
+        double score = (old == null ? 0 : old.score) + delta;
+        add(member, score);
+        return score;
+    }
+
+    /**
+     * 删除成员
+     *
+     * @param member 成员
+     * @return 是否删除成功
+     */
+    public synchronized boolean remove(String member) {
+        Entry old = members.remove(member);
+        if (old != null) {
+            ordered.remove(old);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 只保留分数最高的 capacity 个成员，语义同 ZREMRANGEBYRANK key 0 -(capacity+1)
+     *
+     * @param capacity 保留数量
+     * @return 删除的成员数
+     */
+    public synchronized int trim(int capacity) {
+        int removed = 0;
+        while (members.size() > capacity) {
+            Entry lowest = ordered.pollFirst();
+            members.remove(lowest.member);
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * 查询成员分数
+     *
+     * @param member 成员
+     * @return 分数，不存在时为空
+     */
+    public Double score(String member) {
+        Entry entry = members.get(member);
+        return entry == null ? null : entry.score;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * 按分数升序的快照
+     *
+     * @return 成员及分数
+     */
+    public List<Entry> entries() {
+        return new ArrayList<>(ordered);
+    }
+
+    /**
+     * 按分数降序取前 n 个
+     *
+     * @param n 数量
+     * @return 成员及分数
+     */
+    public List<Entry> top(int n) {
+        List<Entry> result = new ArrayList<>(Math.min(n, members.size()));
+        for (Entry entry : ordered.descendingSet()) {
+            if (result.size() >= n) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * 有序集合成员
+     */
+    public static final class Entry implements Comparable<Entry> {
+
+        private final String member;
+
+        private final double score;
+
+        Entry(String member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+
+        public String getMember() {
+            return member;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Double.compare(score, o.score);
+            return c != 0 ? c : member.compareTo(o.member);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return Double.compare(score, other.score) == 0 && member.equals(other.member);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * member.hashCode() + Double.hashCode(score);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.whl.ReaderApp.repository.memory;
+
+import com.whl.ReaderApp.domain.User;
+import com.whl.ReaderApp.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌内存用户存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "memory")
+public class MemoryUserRepository implements UserRepository {
+
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Boolean> exists(String account) {
+        return Mono.just(users.containsKey(account));
+    }
+
+    @Override
+    public Mono<Boolean> save(User user) {
+        return Mono.fromSupplier(() -> users.putIfAbsent(user.getAccount(), user) == null);
+    }
+
+    @Override
+    public Mono<Boolean> update(User user) {
+        return Mono.fromSupplier(() -> users.put(user.getAccount(), user) == null);
+    }
+
+    @Override
+    public Mono<User> findOne(String account) {
+        return Mono.justOrEmpty(users.get(account));
+    }
+
+    @Override
+    public Flux<String> accounts(int batchSize) {
+        return Flux.defer(() -> Flux.fromIterable(users.keySet()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.whl.ReaderApp.repository.memory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按KEY递增的版本号
+ * <p>
+ * 初始值取创建时的毫秒时间戳而不是 0，重启后数据清空但版本号不会与重启前重复，
+ * 客户端持有的旧 ETag 不会误命中。
+ *
+ * @author whl
+ */
+final class MemoryVersions {
+
+    private final long initial = System.currentTimeMillis();
+
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    long get(String key) {
+        AtomicLong version = versions.get(key);
+        return version == null ? initial : version.get();
+    }
+
+    long increment(String key) {
+        return versions.computeIfAbsent(key, k -> new AtomicLong(initial)).incrementAndGet();
+    }
+}
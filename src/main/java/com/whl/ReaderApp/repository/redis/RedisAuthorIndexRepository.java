@@ -0,0 +1,38 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.repository.AuthorIndexRepository;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_AUTHOR;
+
+/**
+ * 基于 Redis Set 的作者索引
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisAuthorIndexRepository implements AuthorIndexRepository {
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Override
+    public Mono<Long> add(String author, Collection<String> childKeys) {
+        return guard.write("author.add",
+                t -> t.opsForSet().add(RedisKey.of(BOOK_AUTHOR, author), childKeys.toArray(new String[0])));
+    }
+
+    @Override
+    public Flux<String> find(String author) {
+        return guard.readMany("author.find", t -> t.opsForSet().members(RedisKey.of(BOOK_AUTHOR, author)));
+    }
+}
@@ -0,0 +1,165 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.domain.Book;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.resilience.CatalogFallback;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.JsonUtils;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK;
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_VERSION;
+
+/**
+ * 基于Redis Hash的书籍存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisBookRepository implements BookRepository {
+
+    /**
+     * 当前版本的 ReactiveHashOperations 没有 HSCAN，借助脚本执行单个批次
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> HSCAN = RedisScript.of(
+            "return redis.call('HSCAN', KEYS[1], ARGV[1], 'COUNT', ARGV[2])", List.class);
+
+    /**
+     * 当前版本的 multiGet 在字段不存在（返回 nil）时反序列化抛出空指针，改由脚本执行 HMGET，
+     * 在服务端去掉 nil，并按 子KEY、值 成对返回
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> HMGET = RedisScript.of(
+            "local found = {} "
+                    + "for i, v in ipairs(redis.call('HMGET', KEYS[1], unpack(ARGV))) do "
+                    + "if v then found[#found + 1] = ARGV[i]; found[#found + 1] = v end "
+                    + "end "
+                    + "return found", List.class);
+
+    private static final String CURSOR_START = "0";
+
+    @Autowired
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Autowired
+    private CatalogFallback fallback;
+
+    @Override
+    public Mono<Boolean> exists(String childKey) {
+        return guard.read("book.exists", t -> t.opsForHash().hasKey(RedisKey.of(BOOK), childKey));
+    }
+
+    @Override
+    public Mono<Boolean> save(String childKey, Book book) {
+        return guard.write("book.save", t -> t.opsForHash().putIfAbsent(RedisKey.of(BOOK), childKey, JsonUtils.toString(book)));
+    }
+
+    @Override
+    public Mono<Book> findOne(String childKey) {
+        return fallback.book(childKey, guard.read("book.findOne", t -> t.opsForHash().get(RedisKey.of(BOOK), childKey))
+                .flatMap(o -> Mono.justOrEmpty(JsonUtils.toObject(o.toString(), Book.class))));
+    }
+
+    @Override
+    public Flux<Book> findAll() {
+        return guard.readMany("book.findAll", t -> t.opsForHash().values(RedisKey.of(BOOK)))
+                .flatMap(o -> Mono.justOrEmpty(JsonUtils.toObject(o.toString(), Book.class)));
+    }
+
+    @Override
+    public Flux<Book> findAll(Collection<String> childKeys) {
+        if (childKeys.isEmpty()) {
+            return Flux.empty();
+        }
+        Mono<Map<String, Book>> source = guard.read("book.multiGet", t -> t.execute(HMGET,
+                Collections.singletonList(RedisKey.of(BOOK)), new ArrayList<>(childKeys)).next())
+                .map(pairs -> {
+                    Map<String, Book> books = new LinkedHashMap<>(pairs.size());
+                    for (int i = 1; i < pairs.size(); i += 2) {
+                        Book book = JsonUtils.toObject(pairs.get(i).toString(), Book.class);
+                        if (book != null) {
+                            books.put(pairs.get(i - 1).toString(), book);
+                        }
+                    }
+                    return books;
+                });
+        return fallback.books(childKeys, source).flatMapIterable(Map::values);
+    }
+
+    @Override
+    public Mono<Long> version() {
+        return fallback.version(guard.readPrimary("book.version", t -> t.opsForValue().get(RedisKey.of(BOOK_VERSION)))
+                .map(Long::valueOf)
+                .defaultIfEmpty(0L));
+    }
+
+    @Override
+    public Mono<Long> incrementVersion() {
+        // 当前版本的 ReactiveValueOperations 没有 INCR，直接使用连接命令
+        ByteBuffer key = redisTemplate.getSerializationContext().getKeySerializationPair()
+                .write(RedisKey.of(BOOK_VERSION));
+        return guard.write("book.incrementVersion", t -> t.createMono(connection -> connection.numberCommands().incr(key)));
+    }
+
+    @Override
+    public Flux<Book> scan(int batchSize) {
+        // 每次只向上游请求一个批次，下游 take 满足后取消，不会再发出后续 HSCAN
+        return scanBatch(CURSOR_START, batchSize)
+                .expand(page -> CURSOR_START.equals(page.getT1())
+                        ? Mono.empty()
+                        : scanBatch(page.getT1(), batchSize))
+                .concatMapIterable(Tuple2::getT2, 1);
+    }
+
+    @Override
+    public Flux<String> childKeys(int batchSize) {
+        return RedisHashFields.scan(guard, "book.scanKeys", RedisKey.of(BOOK), batchSize);
+    }
+
+    /**
+     * 执行一次 HSCAN
+     *
+     * @param cursor    游标
+     * @param batchSize 每批条数
+     * @return 下一个游标及本批书籍
+     */
+    private Mono<Tuple2<String, List<Book>>> scanBatch(String cursor, int batchSize) {
+        return guard.readPrimary("book.scan", t -> t.execute(HSCAN, Collections.singletonList(RedisKey.of(BOOK)),
+                Arrays.asList(cursor, String.valueOf(batchSize))).next())
+                .map(reply -> {
+                    String next = reply.get(0).toString();
+                    List<?> pairs = (List<?>) reply.get(1);
+                    List<Book> books = new ArrayList<>(pairs.size() / 2);
+                    for (int i = 1; i < pairs.size(); i += 2) {
+                        Book book = JsonUtils.toObject(pairs.get(i).toString(), Book.class);
+                        if (book != null) {
+                            books.add(book);
+                        }
+                    }
+                    return Tuples.of(next, books);
+                });
+    }
+}
@@ -0,0 +1,79 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.config.ExpiryProperties;
+import com.whl.ReaderApp.expiry.KeyExpiry;
+import com.whl.ReaderApp.repository.CartRepository;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SHOP;
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SHOP_VERSION;
+
+/**
+ * 基于Redis ZSet的购物车存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisCartRepository implements CartRepository {
+
+    private static final Range<Long> ALL = Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive(-1L));
+
+    private static final RedisScript<Long> ADD =
+            RedisVersions.script("local result = redis.call('ZADD', KEYS[1], ARGV[3], ARGV[4])");
+
+    private static final RedisScript<Long> REMOVE =
+            RedisVersions.script("local result = redis.call('ZREM', KEYS[1], ARGV[3])");
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Autowired
+    private KeyExpiry keyExpiry;
+
+    @Autowired
+    private ExpiryProperties expiryProperties;
+
+    @Override
+    public Mono<Boolean> add(String acc, String item, double score) {
+        return write("cart.add", ADD, acc, String.valueOf(score), item)
+                .map(added -> added > 0);
+    }
+
+    @Override
+    public Mono<Long> remove(String acc, String item) {
+        return write("cart.remove", REMOVE, acc, item);
+    }
+
+    @Override
+    public Flux<ZSetOperations.TypedTuple<String>> rangeWithScores(String acc) {
+        String key = RedisKey.of(BOOK_SHOP, acc);
+        return guard.readMany("cart.range", t -> t.opsForZSet().rangeWithScores(key, ALL))
+                .doOnSubscribe(s -> {
+                    keyExpiry.touch("cart.expire", key, expiryProperties.getCartTtl());
+                    keyExpiry.touch("cart.expire", RedisKey.of(BOOK_SHOP_VERSION, acc), expiryProperties.getCartTtl());
+                });
+    }
+
+    @Override
+    public Mono<Long> version(String acc) {
+        return RedisVersions.get(guard, "cart.version", RedisKey.of(BOOK_SHOP_VERSION, acc));
+    }
+
+    private Mono<Long> write(String op, RedisScript<Long> script, String acc, String... args) {
+        Duration ttl = expiryProperties.isEnabled() ? expiryProperties.getCartTtl() : null;
+        return RedisVersions.write(guard, op, script, RedisKey.of(BOOK_SHOP, acc), RedisKey.of(BOOK_SHOP_VERSION, acc),
+                ttl, args);
+    }
+}
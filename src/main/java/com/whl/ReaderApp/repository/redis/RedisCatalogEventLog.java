@@ -0,0 +1,169 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.config.CatalogStreamProperties;
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.domain.EventLogStats;
+import com.whl.ReaderApp.repository.CatalogEventLog;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_EVENTS;
+
+/**
+ * 基于 Redis Stream 的书目变更事件日志
+ * <p>
+ * 当前版本的 Spring Data Redis 与 Lettuce 没有 Stream 命令，全部通过脚本执行，要求 Redis 5.0 及以上。
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisCatalogEventLog implements CatalogEventLog {
+
+    private static final RedisScript<String> XADD = RedisScript.of(
+            "return redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '*', 'type', ARGV[2], 'key', ARGV[3])",
+            String.class);
+
+    private static final RedisScript<String> XGROUP_CREATE = RedisScript.of(
+            "local r = redis.pcall('XGROUP', 'CREATE', KEYS[1], ARGV[1], '0', 'MKSTREAM') "
+                    + "if type(r) == 'table' and r.err then "
+                    + "  if string.find(r.err, 'BUSYGROUP') then return 'EXISTS' end "
+                    + "  return redis.error_reply(r.err) "
+                    + "end "
+                    + "return 'OK'",
+            String.class);
+
+    /**
+     * 先取本消费者未确认的事件（ID 0），没有时再取新事件（ID >）
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> XREADGROUP = RedisScript.of(
+            "local r = redis.call('XREADGROUP', 'GROUP', ARGV[1], ARGV[2], 'COUNT', ARGV[3], 'STREAMS', KEYS[1], '0') "
+                    + "if r and r[1] and #r[1][2] > 0 then return r[1][2] end "
+                    + "r = redis.call('XREADGROUP', 'GROUP', ARGV[1], ARGV[2], 'COUNT', ARGV[3], 'STREAMS', KEYS[1], '>') "
+                    + "if r and r[1] then return r[1][2] end "
+                    + "return {}",
+            List.class);
+
+    private static final RedisScript<Long> XACK = RedisScript.of(
+            "return redis.call('XACK', KEYS[1], ARGV[1], unpack(ARGV, 2))", Long.class);
+
+    private static final RedisScript<String> XGROUP_SETID = RedisScript.of(
+            "return redis.call('XGROUP', 'SETID', KEYS[1], ARGV[1], '0')", String.class);
+
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> XINFO = RedisScript.of(
+            "local function field(arr, name) "
+                    + "  for i = 1, #arr, 2 do if arr[i] == name then return arr[i + 1] end end "
+                    + "  return nil "
+                    + "end "
+                    + "local s = redis.call('XINFO', 'STREAM', KEYS[1]) "
+                    + "local delivered, pending = '0-0', 0 "
+                    + "for _, g in ipairs(redis.call('XINFO', 'GROUPS', KEYS[1])) do "
+                    + "  if field(g, 'name') == ARGV[1] then "
+                    + "    delivered = field(g, 'last-delivered-id') pending = field(g, 'pending') "
+                    + "  end "
+                    + "end "
+                    + "return {field(s, 'length'), field(s, 'last-generated-id'), delivered, pending}",
+            List.class);
+
+    @Autowired
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private CatalogStreamProperties streamProperties;
+
+    @Override
+    public Mono<String> append(String type, String childKey) {
+        return redisTemplate.execute(XADD, keys(),
+                Arrays.asList(String.valueOf(streamProperties.getMaxLength()), type, childKey)).next();
+    }
+
+    @Override
+    public Mono<Void> createGroup(String group) {
+        return redisTemplate.execute(XGROUP_CREATE, keys(), Collections.singletonList(group)).then();
+    }
+
+    @Override
+    public Flux<CatalogEvent> read(String group, String consumer, int count) {
+        return redisTemplate.execute(XREADGROUP, keys(), Arrays.asList(group, consumer, String.valueOf(count)))
+                .next()
+                .flatMapIterable(entries -> {
+                    List<CatalogEvent> events = new ArrayList<>(entries.size());
+                    for (Object o : entries) {
+                        events.add(toEvent((List<?>) o));
+                    }
+                    return events;
+                });
+    }
+
+    /**
+     * 解析 XREADGROUP 返回的一条事件
+     * <p>
+     * 待确认的事件被 MAXLEN 裁剪后，XREADGROUP 仍按ID返回它，但字段列表为 nil，解析为 {@link CatalogEvent#TRIMMED}
+     *
+     * @param entry [ID, 字段列表]
+     * @return 事件
+     */
+    static CatalogEvent toEvent(List<?> entry) {
+        CatalogEvent event = new CatalogEvent();
+        event.setId(entry.get(0).toString());
+        List<?> fields = entry.size() > 1 ? (List<?>) entry.get(1) : null;
+        if (fields == null) {
+            event.setType(CatalogEvent.TRIMMED);
+            return event;
+        }
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            String name = fields.get(i).toString();
+            if ("type".equals(name)) {
+                event.setType(fields.get(i + 1).toString());
+            } else if ("key".equals(name)) {
+                event.setChildKey(fields.get(i + 1).toString());
+            }
+        }
+        return event;
+    }
+
+    @Override
+    public Mono<Long> ack(String group, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(0L);
+        }
+        List<String> args = new ArrayList<>(ids.size() + 1);
+        args.add(group);
+        args.addAll(ids);
+        return redisTemplate.execute(XACK, keys(), args).next();
+    }
+
+    @Override
+    public Mono<Void> reset(String group) {
+        return redisTemplate.execute(XGROUP_SETID, keys(), Collections.singletonList(group)).then();
+    }
+
+    @Override
+    public Mono<EventLogStats> stats(String group) {
+        return redisTemplate.execute(XINFO, keys(), Collections.singletonList(group))
+                .next()
+                .map(reply -> {
+                    String generated = reply.get(1).toString();
+                    String delivered = reply.get(2).toString();
+                    return new EventLogStats(((Number) reply.get(0)).longValue(), generated, delivered,
+                            ((Number) reply.get(3)).longValue(), EventLogStats.lagMillis(generated, delivered));
+                });
+    }
+
+    private static List<String> keys() {
+        return Collections.singletonList(RedisKey.of(BOOK_EVENTS));
+    }
+}
@@ -0,0 +1,62 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.resilience.RedisGuard;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按游标分批遍历 Hash 的字段名
+ * <p>
+ * 当前版本的 ReactiveHashOperations 没有 HSCAN，借助脚本执行单个批次，并在服务端去掉字段值，只返回 游标、字段...
+ *
+ * @author whl
+ */
+final class RedisHashFields {
+
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List> HSCAN_FIELDS = RedisScript.of(
+            "local page = redis.call('HSCAN', KEYS[1], ARGV[1], 'COUNT', ARGV[2]) "
+                    + "local result = {page[1]} "
+                    + "for i = 1, #page[2], 2 do result[#result + 1] = page[2][i] end "
+                    + "return result", List.class);
+
+    private static final String CURSOR_START = "0";
+
+    private RedisHashFields() {
+    }
+
+    /**
+     * @param guard     调用保护
+     * @param op        操作名
+     * @param key       Hash KEY
+     * @param batchSize 每批条数
+     * @return 字段名流，下游取消订阅后不再读取后续批次
+     */
+    static Flux<String> scan(RedisGuard guard, String op, String key, int batchSize) {
+        return batch(guard, op, key, CURSOR_START, batchSize)
+                .expand(page -> CURSOR_START.equals(page.getT1())
+                        ? Mono.empty()
+                        : batch(guard, op, key, page.getT1(), batchSize))
+                .concatMapIterable(Tuple2::getT2, 1);
+    }
+
+    private static Mono<Tuple2<String, List<String>>> batch(RedisGuard guard, String op, String key,
+                                                           String cursor, int batchSize) {
+        return guard.readPrimary(op, t -> t.execute(HSCAN_FIELDS, Collections.singletonList(key),
+                Arrays.asList(cursor, String.valueOf(batchSize))).next())
+                .map(reply -> {
+                    String[] fields = new String[reply.size() - 1];
+                    for (int i = 1; i < reply.size(); i++) {
+                        fields[i - 1] = reply.get(i).toString();
+                    }
+                    return Tuples.of(reply.get(0).toString(), Arrays.asList(fields));
+                });
+    }
+}
@@ -0,0 +1,60 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.repository.NeighborRepository;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_NEIGHBORS;
+
+/**
+ * 基于Redis ZSet的共现邻居存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisNeighborRepository implements NeighborRepository {
+
+    /**
+     * 一本书的全部增量与裁剪在一次脚本调用中完成：ARGV[1] 为容量，之后依次为 邻居、增量
+     */
+    private static final RedisScript<Long> INCREMENT = RedisScript.of(
+            "for i = 2, #ARGV, 2 do "
+                    + "redis.call('ZINCRBY', KEYS[1], ARGV[i + 1], ARGV[i]) "
+                    + "end "
+                    + "return redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[1]) - 1)", Long.class);
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Override
+    public Mono<Void> increment(String book, Map<String, Double> deltas, int capacity) {
+        List<String> args = new ArrayList<>(deltas.size() * 2 + 1);
+        args.add(String.valueOf(capacity));
+        deltas.forEach((neighbor, delta) -> {
+            args.add(neighbor);
+            args.add(String.valueOf(delta));
+        });
+        return guard.write("neighbor.increment",
+                t -> t.execute(INCREMENT, Collections.singletonList(RedisKey.of(BOOK_NEIGHBORS, book)), args).then());
+    }
+
+    @Override
+    public Flux<ZSetOperations.TypedTuple<String>> top(String book, int size) {
+        return guard.readMany("neighbor.top", t -> t.opsForZSet().reverseRangeWithScores(RedisKey.of(BOOK_NEIGHBORS, book),
+                Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive((long) size - 1))));
+    }
+}
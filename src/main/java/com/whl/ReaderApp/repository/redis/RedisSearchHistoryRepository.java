@@ -0,0 +1,106 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.config.ExpiryProperties;
+import com.whl.ReaderApp.expiry.KeyExpiry;
+import com.whl.ReaderApp.repository.SearchHistoryRepository;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SEARCH_HISTORY;
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SEARCH_HISTORY_VERSION;
+import static com.whl.ReaderApp.tools.RedisKey.BOOK_SEARCH_TRENDING;
+
+/**
+ * 基于Redis ZSet的搜索历史存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisSearchHistoryRepository implements SearchHistoryRepository {
+
+    private static final Range<Long> ALL = Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive(-1L));
+
+    /**
+     * 累加热门关键词并只保留分数最高的 ARGV[2] 个（0 不裁剪），返回新的分数
+     */
+    private static final RedisScript<String> INCREMENT_TRENDING = RedisScript.of(
+            "local score = redis.call('ZINCRBY', KEYS[1], 1, ARGV[1]) "
+                    + "local keep = tonumber(ARGV[2]) "
+                    + "if keep > 0 then redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -keep - 1) end "
+                    + "return score", String.class);
+
+    private static final RedisScript<Long> ADD =
+            RedisVersions.script("local result = redis.call('ZADD', KEYS[1], ARGV[3], ARGV[4])");
+
+    private static final RedisScript<Long> DELETE =
+            RedisVersions.script("local result = redis.call('DEL', KEYS[1])");
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Autowired
+    private KeyExpiry keyExpiry;
+
+    @Autowired
+    private ExpiryProperties expiryProperties;
+
+    @Override
+    public Mono<Boolean> add(String acc, String keyword, double score) {
+        return write("history.add", ADD, acc, String.valueOf(score), keyword)
+                .map(added -> added > 0);
+    }
+
+    @Override
+    public Flux<String> range(String acc) {
+        String key = RedisKey.of(BOOK_SEARCH_HISTORY, acc);
+        return guard.readMany("history.range", t -> t.opsForZSet().range(key, ALL))
+                .doOnSubscribe(s -> {
+                    keyExpiry.touch("history.expire", key, expiryProperties.getHistoryTtl());
+                    keyExpiry.touch("history.expire", RedisKey.of(BOOK_SEARCH_HISTORY_VERSION, acc),
+                            expiryProperties.getHistoryTtl());
+                });
+    }
+
+    @Override
+    public Mono<Boolean> delete(String acc) {
+        return write("history.delete", DELETE, acc)
+                .map(deleted -> deleted > 0);
+    }
+
+    @Override
+    public Mono<Double> incrementTrending(String keyword) {
+        String max = String.valueOf(expiryProperties.getTrendingMaxEntries());
+        return guard.write("trending.increment", t -> t.execute(INCREMENT_TRENDING,
+                Collections.singletonList(RedisKey.of(BOOK_SEARCH_TRENDING)), Arrays.asList(keyword, max)).next())
+                .map(Double::valueOf);
+    }
+
+    @Override
+    public Flux<String> trending(int size) {
+        return guard.readMany("trending.range", t -> t.opsForZSet().reverseRange(RedisKey.of(BOOK_SEARCH_TRENDING),
+                Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive((long) size - 1))));
+    }
+
+    @Override
+    public Mono<Long> version(String acc) {
+        return RedisVersions.get(guard, "history.version", RedisKey.of(BOOK_SEARCH_HISTORY_VERSION, acc));
+    }
+
+    private Mono<Long> write(String op, RedisScript<Long> script, String acc, String... args) {
+        Duration ttl = expiryProperties.isEnabled() ? expiryProperties.getHistoryTtl() : null;
+        return RedisVersions.write(guard, op, script, RedisKey.of(BOOK_SEARCH_HISTORY, acc),
+                RedisKey.of(BOOK_SEARCH_HISTORY_VERSION, acc), ttl, args);
+    }
+}
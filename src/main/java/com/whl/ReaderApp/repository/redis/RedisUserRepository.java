@@ -0,0 +1,56 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.domain.User;
+import com.whl.ReaderApp.repository.UserRepository;
+import com.whl.ReaderApp.tools.JsonUtils;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.tools.RedisKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.whl.ReaderApp.tools.RedisKey.USER;
+
+/**
+ * 基于Redis Hash的用户存储
+ *
+ * @author whl
+ */
+@Repository
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisUserRepository implements UserRepository {
+
+    @Autowired
+    private RedisGuard guard;
+
+    @Override
+    public Mono<Boolean> exists(String account) {
+        return guard.read("user.exists", t -> t.opsForHash().hasKey(RedisKey.of(USER), account));
+    }
+
+    @Override
+    public Mono<Boolean> save(User user) {
+        return guard.write("user.save",
+                t -> t.opsForHash().putIfAbsent(RedisKey.of(USER), user.getAccount(), JsonUtils.toString(user)));
+    }
+
+    @Override
+    public Mono<Boolean> update(User user) {
+        return guard.write("user.update",
+                t -> t.opsForHash().put(RedisKey.of(USER), user.getAccount(), JsonUtils.toString(user)));
+    }
+
+    @Override
+    public Mono<User> findOne(String account) {
+        return guard.read("user.findOne", t -> t.opsForHash().get(RedisKey.of(USER), account))
+                .filter(json -> !json.toString().isEmpty())
+                .flatMap(json -> Mono.justOrEmpty(JsonUtils.toObject(json.toString(), User.class)));
+    }
+
+    @Override
+    public Flux<String> accounts(int batchSize) {
+        return RedisHashFields.scan(guard, "user.scan", RedisKey.of(USER), batchSize);
+    }
+}
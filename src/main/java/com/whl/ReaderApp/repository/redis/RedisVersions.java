@@ -0,0 +1,86 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.resilience.RedisGuard;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按帐号存放的版本号（购物车、搜索历史的 ETag 依据）
+ * <p>
+ * 每个帐号一个字符串KEY，与对应数据使用同样的闲置过期时间，帐号闲置后随数据一起被删除。
+ * 版本号不存在时从当前毫秒数开始递增，过期后重新创建的版本号不会与客户端缓存的旧 ETag 相同。
+ * <p>
+ * 写入数据与递增版本号在同一个脚本中执行：其它客户端不会读到新版本号配旧数据或旧版本号配新数据，
+ * 写命令出错时脚本中止，版本号不会递增。
+ *
+ * @author whl
+ */
+final class RedisVersions {
+
+    /**
+     * 写命令之后执行：刷新数据KEY的过期时间，递增版本号并刷新其过期时间，返回写命令的结果
+     */
+    private static final String BUMP = " local ms = tonumber(ARGV[1]) "
+            + "if ms > 0 then redis.call('PEXPIRE', KEYS[1], ms) end "
+            + "if redis.call('EXISTS', KEYS[2]) == 0 then redis.call('SET', KEYS[2], ARGV[2]) end "
+            + "redis.call('INCR', KEYS[2]) "
+            + "if ms > 0 then redis.call('PEXPIRE', KEYS[2], ms) end "
+            + "return result";
+
+    private RedisVersions() {
+    }
+
+    /**
+     * 生成写入并递增版本号的脚本
+     * <p>
+     * KEYS[1] 为数据KEY，KEYS[2] 为版本号KEY；ARGV[1] 为过期毫秒（0 不设置），ARGV[2] 为版本号不存在时的初始值，
+     * 写命令的参数从 ARGV[3] 开始
+     *
+     * @param write 写命令，结果赋值给 result，如 {@code local result = redis.call('ZADD', KEYS[1], ARGV[3], ARGV[4])}
+     * @return 脚本，返回写命令的结果
+     */
+    static RedisScript<Long> script(String write) {
+        return RedisScript.of(write + BUMP, Long.class);
+    }
+
+    /**
+     * 写入数据并递增版本号
+     *
+     * @param guard      调用保护
+     * @param op         操作名
+     * @param script     {@link #script(String)} 生成的脚本
+     * @param key        数据KEY
+     * @param versionKey 版本号KEY
+     * @param ttl        过期时间，为空时不设置
+     * @param args       写命令的参数
+     * @return 写命令的结果
+     */
+    static Mono<Long> write(RedisGuard guard, String op, RedisScript<Long> script, String key, String versionKey,
+                            Duration ttl, String... args) {
+        List<String> argv = new ArrayList<>(args.length + 2);
+        argv.add(String.valueOf(ttl == null ? 0 : ttl.toMillis()));
+        argv.add(String.valueOf(System.currentTimeMillis()));
+        Collections.addAll(argv, args);
+        return guard.write(op, t -> t.execute(script, Arrays.asList(key, versionKey), argv).next());
+    }
+
+    /**
+     * 读取版本号，只发往主节点
+     *
+     * @param guard 调用保护
+     * @param op    操作名
+     * @param key   版本号KEY
+     * @return 版本号，不存在时为 0
+     */
+    static Mono<Long> get(RedisGuard guard, String op, String key) {
+        return guard.readPrimary(op, t -> t.opsForValue().get(key))
+                .map(Long::valueOf)
+                .defaultIfEmpty(0L);
+    }
+}
@@ -0,0 +1,144 @@
+package com.whl.ReaderApp.resilience;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.whl.ReaderApp.config.ResilienceProperties;
+import com.whl.ReaderApp.domain.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近一次成功读取的书目数据
+ * <p>
+ * 书籍读取成功时顺带记录，Redis 超时、出错或熔断时用记录的数据代替；书目版本号同样保留最近一次的值，
+ * 这样降级期间搜索结果缓存仍按旧版本号命中，已缓存过的关键字可以继续搜索。没有记录的数据照常返回错误。
+ *
+ * @author whl
+ */
+@Component
+public class CatalogFallback {
+
+    @Autowired
+    private ResilienceProperties resilienceProperties;
+
+    private Cache<String, Book> books;
+
+    private volatile Long version;
+
+    private final AtomicLong served = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        ResilienceProperties.Stale config = resilienceProperties.getStale();
+        books = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    private boolean isEnabled() {
+        return resilienceProperties.getStale().isEnabled();
+    }
+
+    /**
+     * 单本书籍读取，成功时记录，失败时返回记录
+     *
+     * @param childKey 子KEY
+     * @param source   读取
+     * @return 书籍
+     */
+    public Mono<Book> book(String childKey, Mono<Book> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return source
+                .doOnNext(book -> books.put(childKey, book))
+                .onErrorResume(e -> {
+                    Book book = books.getIfPresent(childKey);
+                    if (book == null) {
+                        return Mono.error(e);
+                    }
+                    served.incrementAndGet();
+                    return Mono.just(book);
+                });
+    }
+
+    /**
+     * 批量读取，成功时记录，失败时返回有记录的部分
+     *
+     * @param childKeys 子KEY
+     * @param source    读取，子KEY到书籍
+     * @return 子KEY到书籍
+     */
+    public Mono<Map<String, Book>> books(Collection<String> childKeys, Mono<Map<String, Book>> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return source
+                .doOnNext(books::putAll)
+                .onErrorResume(e -> {
+                    Map<String, Book> found = new LinkedHashMap<>();
+                    for (String childKey : childKeys) {
+                        Book book = books.getIfPresent(childKey);
+                        if (book != null) {
+                            found.put(childKey, book);
+                        }
+                    }
+                    if (found.isEmpty()) {
+                        return Mono.error(e);
+                    }
+                    served.addAndGet(found.size());
+                    return Mono.just(found);
+                });
+    }
+
+    /**
+     * 记录由其它途径（例如 HSCAN 搜索）读到的书籍
+     *
+     * @param childKey 子KEY
+     * @param book     书籍
+     */
+    public void remember(String childKey, Book book) {
+        if (isEnabled()) {
+            books.put(childKey, book);
+        }
+    }
+
+    /**
+     * 书目版本号读取，成功时记录，失败时返回记录
+     *
+     * @param source 读取
+     * @return 版本号
+     */
+    public Mono<Long> version(Mono<Long> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return source
+                .doOnNext(v -> version = v)
+                .onErrorResume(e -> {
+                    Long last = version;
+                    if (last == null) {
+                        return Mono.error(e);
+                    }
+                    served.incrementAndGet();
+                    return Mono.just(last);
+                });
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    public long size() {
+        return books.estimatedSize();
+    }
+}
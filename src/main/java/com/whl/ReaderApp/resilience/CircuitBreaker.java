@@ -0,0 +1,160 @@
+package com.whl.ReaderApp.resilience;
+
+import com.whl.ReaderApp.config.ResilienceProperties;
+
+/**
+ * 按次数窗口统计失败率的熔断器
+ * <p>
+ * 关闭：全部放行，窗口内失败率达到阈值后打开。打开：全部拒绝，持续 openDuration 后进入半开。
+ * 半开：只放行 halfOpenCalls 个试探调用，全部成功则关闭，任一失败则重新打开。
+ * 状态变化很少且临界区极短，直接同步即可。
+ *
+ * @author whl
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+
+    private final ResilienceProperties.Breaker config;
+
+    private final boolean[] window;
+
+    private int position;
+
+    private int calls;
+
+    private int failures;
+
+    private State state = State.CLOSED;
+
+    private long openUntil;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    private long rejected;
+
+    private long opened;
+
+    public CircuitBreaker(String name, ResilienceProperties.Breaker config) {
+        this.name = name;
+        this.config = config;
+        this.window = new boolean[Math.max(config.getWindowSize(), 1)];
+    }
+
+    /**
+     * 申请调用
+     *
+     * @return 是否放行
+     */
+    public synchronized boolean tryAcquire() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= config.getHalfOpenCalls()) {
+                rejected++;
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                state = State.CLOSED;
+                position = 0;
+                calls = 0;
+                failures = 0;
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (calls >= config.getMinimumCalls() && failures >= config.getFailureRateThreshold() * calls) {
+            open();
+        }
+    }
+
+    /**
+     * 调用被取消（例如对冲读中落败），不计入成败，归还半开状态的试探名额
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenPermits > halfOpenSuccesses) {
+            halfOpenPermits--;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (calls == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = failed;
+        if (failed) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + config.getOpenDuration().toMillis();
+        opened++;
+    }
+
+    /**
+     * 当前是否拒绝调用，不改变状态
+     *
+     * @return 是否处于打开状态且未到半开时间
+     */
+    public synchronized boolean isOpen() {
+        return config.isEnabled() && state == State.OPEN && System.currentTimeMillis() < openUntil;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getOpened() {
+        return opened;
+    }
+}
@@ -0,0 +1,13 @@
+package com.whl.ReaderApp.resilience;
+
+/**
+ * 熔断器打开时快速失败
+ *
+ * @author whl
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String name) {
+        super("熔断中：" + name);
+    }
+}
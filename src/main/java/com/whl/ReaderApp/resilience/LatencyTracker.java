@@ -0,0 +1,60 @@
+package com.whl.ReaderApp.resilience;
+
+import java.util.Arrays;
+
+/**
+ * 最近若干次调用的延迟分位
+ * <p>
+ * 环形缓冲保存最近 {@value #SIZE} 个样本，每写入 {@value #REFRESH} 个样本重新排序计算一次分位并缓存，
+ * 读取分位无需排序。
+ *
+ * @author whl
+ */
+public final class LatencyTracker {
+
+    private static final int SIZE = 256;
+
+    private static final int REFRESH = 32;
+
+    private final double percentile;
+
+    private final long[] samples = new long[SIZE];
+
+    private int position;
+
+    private long count;
+
+    private volatile long cachedNanos = -1;
+
+    public LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * 记录一次成功调用的耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public synchronized void record(long nanos) {
+        samples[position] = nanos;
+        position = (position + 1) % SIZE;
+        count++;
+        if (count % REFRESH == 0 || count == 1) {
+            int n = (int) Math.min(count, SIZE);
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            cachedNanos = sorted[Math.max(Math.min((int) Math.ceil(percentile * n) - 1, n - 1), 0)];
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return 分位延迟（纳秒），没有样本时为 -1
+     */
+    public long percentileNanos() {
+        return cachedNanos;
+    }
+}
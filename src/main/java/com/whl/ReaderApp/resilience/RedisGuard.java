@@ -0,0 +1,261 @@
+package com.whl.ReaderApp.resilience;
+
+import com.whl.ReaderApp.config.ResilienceProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Redis 调用保护
+ * <p>
+ * 所有 Redis 仓库的命令都经由这里执行：每个操作有独立的超时（慢节点不会无限占用请求），
+ * 主节点与从节点各有一个熔断器（持续失败时快速失败而不是逐个等待超时）。
+ * <p>
+ * 配置了从节点时，只读操作在主节点超过该操作历史 p95 延迟仍未返回时向从节点再发一次，取先返回者，
+ * 以约 5% 的额外读请求换取尾延迟；主节点出错或熔断时只读操作直接转到从节点。写操作只发往主节点。
+ * 游标扫描（游标不能跨节点使用）与版本号读取（从节点延迟会让缓存校验读到旧版本）同样只发往主节点。
+ *
+ * @author whl
+ */
+@Component
+@ConditionalOnProperty(name = "reader.storage.type", havingValue = "redis", matchIfMissing = true)
+public class RedisGuard {
+
+    @Autowired
+    private ResilienceProperties resilienceProperties;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    @Qualifier("replicaRedisTemplate")
+    private ReactiveRedisTemplate<String, String> replicaTemplate;
+
+    private CircuitBreaker primaryBreaker;
+
+    private CircuitBreaker replicaBreaker;
+
+    private final ConcurrentHashMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private final AtomicLong failovers = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        primaryBreaker = new CircuitBreaker("primary", resilienceProperties.getBreaker());
+        replicaBreaker = new CircuitBreaker("replica", resilienceProperties.getBreaker());
+    }
+
+    /**
+     * 只读操作，可对冲与转移到从节点
+     *
+     * @param op   操作名
+     * @param call 在给定节点上执行的命令
+     * @param <T>  结果类型
+     * @return 结果
+     */
+    public <T> Mono<T> read(String op, Function<ReactiveRedisTemplate<String, String>, Mono<T>> call) {
+        Operation operation = operation(op);
+        Duration budget = budget(op, resilienceProperties.getReadTimeout());
+        Mono<T> primary = guarded(operation, primaryBreaker, redisTemplate, call, budget, true);
+        if (replicaTemplate == null) {
+            return primary;
+        }
+        Mono<T> replica = guarded(operation, replicaBreaker, replicaTemplate, call, budget, false);
+
+        return Mono.defer(() -> {
+            if (primaryBreaker.isOpen()) {
+                failovers.incrementAndGet();
+                return replica;
+            }
+            Duration delay = hedgeDelay(operation);
+            if (delay == null) {
+                return primary.onErrorResume(e -> {
+                    failovers.incrementAndGet();
+                    return replica;
+                });
+            }
+            // 主节点出错时不立即结束，等待对冲请求的结果
+            return Mono.first(primary.onErrorResume(e -> Mono.never()),
+                    Mono.delay(delay).then(Mono.defer(() -> {
+                        hedges.incrementAndGet();
+                        return replica.doOnSuccess(o -> hedgeWins.incrementAndGet());
+                    })));
+        });
+    }
+
+    /**
+     * 只发往主节点的只读操作：SCAN 类命令的游标只在同一节点上有效，版本号必须读到最新值
+     *
+     * @param op   操作名
+     * @param call 命令
+     * @param <T>  结果类型
+     * @return 结果
+     */
+    public <T> Mono<T> readPrimary(String op, Function<ReactiveRedisTemplate<String, String>, Mono<T>> call) {
+        return guarded(operation(op), primaryBreaker, redisTemplate, call,
+                budget(op, resilienceProperties.getReadTimeout()), true);
+    }
+
+    /**
+     * 结果数量有限的只读操作，整体作为一次调用计时与对冲
+     *
+     * @param op   操作名
+     * @param call 在给定节点上执行的命令
+     * @param <T>  元素类型
+     * @return 结果
+     */
+    public <T> Flux<T> readMany(String op, Function<ReactiveRedisTemplate<String, String>, Flux<T>> call) {
+        return this.<List<T>>read(op, template -> call.apply(template).collectList())
+                .flatMapIterable(list -> list);
+    }
+
+    /**
+     * 写操作，只发往主节点
+     *
+     * @param op   操作名
+     * @param call 命令
+     * @param <T>  结果类型
+     * @return 结果
+     */
+    public <T> Mono<T> write(String op, Function<ReactiveRedisTemplate<String, String>, Mono<T>> call) {
+        return guarded(operation(op), primaryBreaker, redisTemplate, call,
+                budget(op, resilienceProperties.getWriteTimeout()), true);
+    }
+
+    private <T> Mono<T> guarded(Operation operation, CircuitBreaker breaker,
+                                ReactiveRedisTemplate<String, String> template,
+                                Function<ReactiveRedisTemplate<String, String>, Mono<T>> call,
+                                Duration budget, boolean track) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                operation.rejected.incrementAndGet();
+                return Mono.error(new CircuitOpenException(breaker.getName()));
+            }
+            long start = System.nanoTime();
+            return call.apply(template)
+                    .timeout(budget)
+                    .doOnError(e -> {
+                        breaker.onFailure();
+                        if (e instanceof TimeoutException) {
+                            operation.timeouts.incrementAndGet();
+                        } else {
+                            operation.failures.incrementAndGet();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) {
+                            breaker.onSuccess();
+                            if (track) {
+                                operation.latency.record(System.nanoTime() - start);
+                            }
+                        } else if (signal == SignalType.CANCEL) {
+                            breaker.onCancel();
+                        }
+                    });
+        });
+    }
+
+    private Duration hedgeDelay(Operation operation) {
+        ResilienceProperties.Hedge config = resilienceProperties.getHedge();
+        if (!config.isEnabled() || operation.latency.getCount() < config.getMinSamples()) {
+            return null;
+        }
+        long nanos = Math.max(operation.latency.percentileNanos(), config.getMinDelay().toNanos());
+        return Duration.ofNanos(nanos);
+    }
+
+    private Duration budget(String op, Duration fallback) {
+        return resilienceProperties.getTimeouts().getOrDefault(op, fallback);
+    }
+
+    private Operation operation(String op) {
+        return operations.computeIfAbsent(op, k -> new Operation(resilienceProperties.getHedge().getPercentile()));
+    }
+
+    /**
+     * 主节点是否处于熔断状态
+     *
+     * @return 是否熔断
+     */
+    public boolean isDegraded() {
+        return primaryBreaker.isOpen();
+    }
+
+    /**
+     * 熔断、对冲与各操作的延迟指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("primary", breakerStats(primaryBreaker));
+        if (replicaTemplate != null) {
+            result.put("replica", breakerStats(replicaBreaker));
+        }
+        result.put("hedges", hedges.get());
+        result.put("hedgeWins", hedgeWins.get());
+        result.put("failovers", failovers.get());
+
+        Map<String, Object> ops = new TreeMap<>();
+        operations.forEach((name, operation) -> {
+            Map<String, Object> op = new LinkedHashMap<>();
+            long p = operation.latency.percentileNanos();
+            op.put("calls", operation.latency.getCount());
+            op.put("percentileMicros", p < 0 ? null : TimeUnit.NANOSECONDS.toMicros(p));
+            op.put("timeouts", operation.timeouts.get());
+            op.put("failures", operation.failures.get());
+            op.put("rejected", operation.rejected.get());
+            ops.put(name, op);
+        });
+        result.put("operations", ops);
+        return result;
+    }
+
+    private static Map<String, Object> breakerStats(CircuitBreaker breaker) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", breaker.getState());
+        result.put("failureRate", breaker.getFailureRate());
+        result.put("opened", breaker.getOpened());
+        result.put("rejected", breaker.getRejected());
+        return result;
+    }
+
+    /**
+     * 单个操作的统计，延迟只记录主节点的成功调用，作为对冲延迟的依据
+     */
+    private static final class Operation {
+
+        private final LatencyTracker latency;
+
+        private final AtomicLong timeouts = new AtomicLong();
+
+        private final AtomicLong failures = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        Operation(double percentile) {
+            this.latency = new LatencyTracker(percentile);
+        }
+    }
+}
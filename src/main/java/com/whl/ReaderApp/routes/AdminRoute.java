@@ -0,0 +1,275 @@
+package com.whl.ReaderApp.routes;
+
+import com.whl.ReaderApp.catalog.CatalogProjector;
+import com.whl.ReaderApp.config.AdminProperties;
+import com.whl.ReaderApp.expiry.IdleKeySweeper;
+import com.whl.ReaderApp.filter.ExistenceFilters;
+import com.whl.ReaderApp.hotkey.HotKeyTracker;
+import com.whl.ReaderApp.recommend.CoOccurrenceEngine;
+import com.whl.ReaderApp.resilience.CatalogFallback;
+import com.whl.ReaderApp.resilience.RedisGuard;
+import com.whl.ReaderApp.runtime.ThreadPoolMetrics;
+import com.whl.ReaderApp.security.PasswordHasher;
+import com.whl.ReaderApp.tools.Result;
+import com.whl.ReaderApp.upload.CoverStore;
+import com.whl.ReaderApp.warmup.WarmUpRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.web.reactive.function.BodyInserters.fromObject;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+import static org.springframework.web.reactive.function.server.RouterFunctions.nest;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+import static org.springframework.web.reactive.function.server.ServerResponse.status;
+
+/**
+ * 运维相关route：运行指标与后台任务
+ * <p>
+ * 重建类接口会全量扫描存储，需携带 reader.admin.token 配置的令牌（X-Admin-Token 请求头），未配置令牌时关闭；
+ * /api/admin 下的接口不返回跨域响应头，浏览器中的其它页面无法跨域调用。
+ *
+ * @author whl
+ */
+@Component
+public class AdminRoute {
+
+    /**
+     * 运维令牌请求头
+     */
+    public static final String TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private AdminProperties adminProperties;
+
+    @Autowired
+    private CatalogProjector catalogProjector;
+
+    @Autowired
+    private CoOccurrenceEngine coOccurrenceEngine;
+
+    @Autowired
+    private WarmUpRunner warmUpRunner;
+
+    /**
+     * 内存存储时不存在
+     */
+    @Autowired(required = false)
+    private RedisGuard redisGuard;
+
+    @Autowired
+    private CatalogFallback catalogFallback;
+
+    /**
+     * 内存存储时不存在
+     */
+    @Autowired(required = false)
+    private IdleKeySweeper idleKeySweeper;
+
+    @Autowired
+    private ExistenceFilters existenceFilters;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private CoverStore coverStore;
+
+    @Autowired
+    private ThreadPoolMetrics threadPoolMetrics;
+
+    @Bean
+    RouterFunction<?> adminRoutes() {
+
+        return nest(path("/api/admin"),
+                route(GET("/catalog/stream"), this::catalogStream)
+                        .andRoute(POST("/catalog/rebuild"), authorized(this::rebuildCatalog))
+                        .andRoute(GET("/recommend"), this::recommend)
+                        .andRoute(GET("/ready"), this::ready)
+                        .andRoute(GET("/redis"), this::redis)
+                        .andRoute(GET("/hotkeys"), this::hotKeys)
+                        .andRoute(GET("/sweeper"), this::sweeper)
+                        .andRoute(GET("/filters"), this::filters)
+                        .andRoute(POST("/filters/rebuild"), authorized(this::rebuildFilters))
+                        .andRoute(GET("/password"), this::password)
+                        .andRoute(GET("/uploads"), this::uploads)
+                        .andRoute(GET("/runtime"), this::runtime)
+        );
+    }
+
+    /**
+     * 校验运维令牌：未配置令牌时返回 404，令牌不符时返回 403
+     *
+     * @param handler 处理函数
+     * @return 带校验的处理函数
+     */
+    private HandlerFunction<ServerResponse> authorized(HandlerFunction<ServerResponse> handler) {
+        return request -> {
+            String token = adminProperties.getToken();
+            if (!StringUtils.hasText(token)) {
+                return status(HttpStatus.NOT_FOUND).build();
+            }
+            String given = request.headers().asHttpHeaders().getFirst(TOKEN_HEADER);
+            if (given == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                    given.getBytes(StandardCharsets.UTF_8))) {
+                return status(HttpStatus.FORBIDDEN).build();
+            }
+            return handler.handle(request);
+        };
+    }
+
+    /**
+     * 书目事件流消费状态与延迟
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> catalogStream(ServerRequest request) {
+        return catalogProjector.stats()
+                .flatMap(o -> ok().body(fromObject(Result.ok(o))));
+    }
+
+    /**
+     * 重放事件重建全部投影
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> rebuildCatalog(ServerRequest request) {
+        return catalogProjector.rebuild()
+                .then(ok().body(fromObject(Result.ok())));
+    }
+
+    /**
+     * 共现推荐缓冲与写入指标
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> recommend(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(coOccurrenceEngine.stats())));
+    }
+
+    /**
+     * 就绪检查，预热完成前返回 503
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> ready(ServerRequest request) {
+        if (warmUpRunner.isReady()) {
+            return ok().body(fromObject(Result.ok(warmUpRunner.status())));
+        }
+        return status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(fromObject(Result.error(1, "预热中", warmUpRunner.status())));
+    }
+
+    /**
+     * Redis 调用保护指标：熔断状态、对冲次数、各操作分位延迟与降级数据使用情况
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> redis(ServerRequest request) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (redisGuard != null) {
+            result.putAll(redisGuard.stats());
+        }
+        result.put("staleServed", catalogFallback.getServed());
+        result.put("staleBooks", catalogFallback.size());
+        return ok().body(fromObject(Result.ok(result)));
+    }
+
+    /**
+     * 滑动窗口内最热的KEY与本地缓存命中情况
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> hotKeys(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(hotKeyTracker.stats())));
+    }
+
+    /**
+     * 购物车与搜索历史后台清理进度，内存存储时没有数据
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> sweeper(ServerRequest request) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (idleKeySweeper != null) {
+            result.putAll(idleKeySweeper.stats());
+        }
+        return ok().body(fromObject(Result.ok(result)));
+    }
+
+    /**
+     * 存在性过滤器容量与误判率
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> filters(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(existenceFilters.stats())));
+    }
+
+    /**
+     * 立即重建存在性过滤器，已有重建在进行时直接返回
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> rebuildFilters(ServerRequest request) {
+        return existenceFilters.rebuild()
+                .then(ok().body(fromObject(Result.ok(existenceFilters.stats()))));
+    }
+
+    /**
+     * 密码哈希线程池：排队、拒绝与平均耗时
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> password(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(passwordHasher.stats())));
+    }
+
+    /**
+     * 封面存储：新增文件与重复上传数
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> uploads(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(coverStore.stats())));
+    }
+
+    /**
+     * 传输方式与各线程池利用率
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> runtime(ServerRequest request) {
+        return ok().body(fromObject(Result.ok(threadPoolMetrics.stats())));
+    }
+}
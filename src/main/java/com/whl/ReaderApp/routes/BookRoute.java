@@ -1,18 +1,21 @@
 package com.whl.ReaderApp.routes;
 
+import com.whl.ReaderApp.config.BookApiProperties;
 import com.whl.ReaderApp.domain.Book;
 import com.whl.ReaderApp.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.springframework.web.reactive.function.BodyExtractors.toMultipartData;
 import static org.springframework.web.reactive.function.BodyInserters.fromObject;
@@ -30,12 +33,20 @@ import static org.springframework.web.reactive.function.server.ServerResponse.ok
 @Component
 public class BookRoute {
 
-    @Autowired
-    private ReactiveRedisTemplate<String, String> redisTemplate;
+    /**
+     * limit 参数不是正整数
+     */
+    private static final int INVALID_LIMIT = -1;
 
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookApiProperties bookApiProperties;
+
+    @Autowired
+    private ETagResponses etagResponses;
+
     @Bean
     RouterFunction<?> bookRoutes() {
 
@@ -49,6 +60,11 @@ public class BookRoute {
                         .andRoute(GET("/search/history/{account}"), this::getSearchHistory)
                         .andRoute(DELETE("/search/history/{account}"), this::delSearchHistory)
                         .andRoute(POST("/upload").and(accept(MediaType.MULTIPART_FORM_DATA)), this::upload)
+                        .andRoute(GET("/author/{author}"), this::findByAuthor)
+                        .andRoute(POST("/batch"), this::batch)
+                        .andRoute(GET("/home/{account}"), this::home)
+                        .andRoute(GET("/recommend/{bookName}/{author}"), this::recommend)
+                        .andRoute(GET("/shop/{account}/recommend"), this::recommendForShop)
         );
     }
 
@@ -63,9 +79,8 @@ public class BookRoute {
 
         return Optional.of(account)
                 .filter(o -> !o.isEmpty())
-                .map(acc -> bookService.getShop(acc))
-                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
-                        .switchIfEmpty(badRequest().build()))
+                .map(acc -> etagResponses.respond(request, bookService.shopVersion(acc), "c",
+                        () -> bookService.getShop(acc)))
                 .orElse(badRequest().build());
     }
 
@@ -136,9 +151,8 @@ public class BookRoute {
 
         return Optional.of(account)
                 .filter(o -> !o.isEmpty())
-                .map(acc -> bookService.getSearchHistory(acc))
-                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
-                        .switchIfEmpty(badRequest().build()))
+                .map(acc -> etagResponses.respond(request, bookService.historyVersion(acc), "h",
+                        () -> bookService.getSearchHistory(acc)))
                 .orElse(badRequest().build());
     }
 
@@ -161,6 +175,99 @@ public class BookRoute {
 
     }
 
+    /**
+     * 按作者查询书籍
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> findByAuthor(ServerRequest request) {
+        String author = request.pathVariable("author");
+
+        return Optional.of(author)
+                .filter(o -> !o.trim().isEmpty())
+                .map(bookService::findByAuthor)
+                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
+                        .switchIfEmpty(badRequest().build()))
+                .orElse(badRequest().build());
+    }
+
+    /**
+     * 批量查询书籍，请求体为子KEY数组
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> batch(ServerRequest request) {
+        // 丢弃 null 与空白ID后再校验数量，全部无效时同样视为错误请求
+        return request.bodyToMono(String[].class)
+                .map(ids -> Arrays.stream(ids).filter(StringUtils::hasText).collect(Collectors.toList()))
+                .filter(ids -> !ids.isEmpty() && ids.size() <= bookApiProperties.getBatchMaxSize())
+                .flatMap(bookService::findAll)
+                .flatMap(o -> ok().body(fromObject(o)))
+                .switchIfEmpty(badRequest().build());
+    }
+
+    /**
+     * 首页聚合数据
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> home(ServerRequest request) {
+        String account = request.pathVariable("account");
+
+        return Optional.of(account)
+                .filter(o -> !o.isEmpty())
+                .map(acc -> bookService.home(acc))
+                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
+                        .switchIfEmpty(badRequest().build()))
+                .orElse(badRequest().build());
+    }
+
+    /**
+     * 与某本书最常一起购买的书籍
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> recommend(ServerRequest request) {
+        String bookName = request.pathVariable("bookName");
+        String author = request.pathVariable("author");
+        Integer limit = limit(request);
+        if (limit != null && limit == INVALID_LIMIT) {
+            return badRequest().build();
+        }
+
+        return Optional.of(bookName)
+                .filter(o -> !o.isEmpty())
+                .map(name -> bookService.recommend(name, author, limit))
+                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
+                        .switchIfEmpty(badRequest().build()))
+                .orElse(badRequest().build());
+    }
+
+    /**
+     * 按购物车推荐书籍
+     *
+     * @param request 请求
+     * @return 响应结果
+     */
+    private Mono<ServerResponse> recommendForShop(ServerRequest request) {
+        String account = request.pathVariable("account");
+        Integer limit = limit(request);
+        if (limit != null && limit == INVALID_LIMIT) {
+            return badRequest().build();
+        }
+
+        return Optional.of(account)
+                .filter(o -> !o.isEmpty())
+                .map(acc -> bookService.recommendForShop(acc, limit))
+                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
+                        .switchIfEmpty(badRequest().build()))
+                .orElse(badRequest().build());
+    }
+
     /**
      * 上传封面
      *
@@ -202,12 +309,34 @@ public class BookRoute {
      */
     private Mono<ServerResponse> search(ServerRequest request) {
         String keyword = request.pathVariable("word");
+        Integer limit = limit(request);
+        if (limit != null && limit == INVALID_LIMIT) {
+            return badRequest().build();
+        }
 
         return Optional.of(keyword)
                 .filter(o -> !o.isEmpty())
-                .map(bookService::search)
-                .map(o -> o.flatMap(t -> ok().body(fromObject(t)))
-                        .switchIfEmpty(badRequest().build()))
+                .map(word -> etagResponses.respond(request, bookService.catalogVersion(), "s",
+                        () -> bookService.search(word, limit)))
                 .orElse(badRequest().build());
     }
+
+    /**
+     * 解析 limit 参数
+     *
+     * @param request 请求
+     * @return 缺省时为 null，不是正整数时为 INVALID_LIMIT
+     */
+    private static Integer limit(ServerRequest request) {
+        Optional<String> value = request.queryParam("limit");
+        if (!value.isPresent()) {
+            return null;
+        }
+        try {
+            int limit = Integer.parseInt(value.get().trim());
+            return limit > 0 ? limit : INVALID_LIMIT;
+        } catch (NumberFormatException e) {
+            return INVALID_LIMIT;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.whl.ReaderApp.routes;
+
+import com.whl.ReaderApp.config.HttpProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.springframework.web.reactive.function.BodyInserters.fromObject;
+import static org.springframework.web.reactive.function.server.ServerResponse.badRequest;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+import static org.springframework.web.reactive.function.server.ServerResponse.status;
+
+/**
+ * 基于版本号的条件请求
+ * <p>
+ * ETag 由数据版本号生成（书目版本、购物车版本、搜索历史版本），先读版本号再决定是否读取数据：
+ * If-None-Match 命中时直接返回 304，既不查询数据也不序列化。版本号必须先于数据读取，
+ * 这样并发写入时最坏情况是新数据配旧 ETag，只会多一次完整响应，不会让客户端错过更新。
+ * <p>
+ * 使用弱 ETag，响应经过 gzip/deflate 压缩后字节不同但语义相同。
+ *
+ * @author whl
+ */
+@Component
+public class ETagResponses {
+
+    @Autowired
+    private HttpProperties httpProperties;
+
+    /**
+     * 带 ETag 的 200 响应，或 304
+     *
+     * @param request 请求
+     * @param version 数据版本号
+     * @param scope   版本号所属的数据类型，区分不同资源的 ETag
+     * @param body    读取数据，只在未命中时调用
+     * @param <T>     数据类型
+     * @return 响应，数据为空时 400
+     */
+    public <T> Mono<ServerResponse> respond(ServerRequest request, Mono<Long> version, String scope,
+                                            Supplier<Mono<T>> body) {
+        HttpProperties.ETag config = httpProperties.getEtag();
+        if (!config.isEnabled()) {
+            return body.get()
+                    .flatMap(t -> ok().body(fromObject(t)))
+                    .switchIfEmpty(badRequest().build());
+        }
+
+        return version.flatMap(v -> {
+            String etag = "W/\"" + scope + v + "\"";
+            if (matches(request.headers().header(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return status(HttpStatus.NOT_MODIFIED)
+                        .header(HttpHeaders.ETAG, etag)
+                        .header(HttpHeaders.CACHE_CONTROL, config.getCacheControl())
+                        .build();
+            }
+            return body.get()
+                    .flatMap(t -> ok()
+                            .header(HttpHeaders.ETAG, etag)
+                            .header(HttpHeaders.CACHE_CONTROL, config.getCacheControl())
+                            .body(fromObject(t)));
+        }).switchIfEmpty(badRequest().build());
+    }
+
+    /**
+     * If-None-Match 使用弱比较：忽略 W/ 前缀，* 匹配任何版本
+     *
+     * @param ifNoneMatch 请求头
+     * @param etag        当前 ETag
+     * @return 是否命中
+     */
+    static boolean matches(List<String> ifNoneMatch, String etag) {
+        String opaque = opaque(etag);
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag) || opaque.equals(opaque(tag))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
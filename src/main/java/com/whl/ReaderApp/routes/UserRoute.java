@@ -4,7 +4,6 @@ import com.whl.ReaderApp.domain.User;
 import com.whl.ReaderApp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
@@ -27,9 +26,6 @@ import static org.springframework.web.reactive.function.server.ServerResponse.ok
 @Component
 public class UserRoute {
 
-    @Autowired
-    private ReactiveRedisTemplate<String, String> redisTemplate;
-
     @Autowired
     private UserService userService;
 
@@ -0,0 +1,98 @@
+package com.whl.ReaderApp.runtime;
+
+import com.whl.ReaderApp.config.RuntimeProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 阻塞文件读写专用的调度器
+ * <p>
+ * 文件操作不能放在事件循环上；Schedulers.elastic() 的线程数没有上限，磁盘变慢时会不断创建线程。
+ * 这里使用定长线程池与有界队列，队列满时订阅立即以 RejectedExecutionException 结束。
+ *
+ * @author whl
+ */
+@Component
+public class FileIoScheduler {
+
+    /**
+     * 线程名前缀，线程池指标按此归类
+     */
+    public static final String THREAD_PREFIX = "file-io-";
+
+    @Autowired
+    private RuntimeProperties runtimeProperties;
+
+    private ThreadPoolExecutor executor;
+
+    private Scheduler scheduler;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        RuntimeProperties.FileIo config = runtimeProperties.getFileIo();
+        AtomicInteger index = new AtomicInteger();
+        RejectedExecutionHandler abort = new ThreadPoolExecutor.AbortPolicy();
+        executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, THREAD_PREFIX + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, e) -> {
+                    rejected.incrementAndGet();
+                    abort.rejectedExecution(r, e);
+                });
+        scheduler = Schedulers.fromExecutorService(executor);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.dispose();
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * 底层线程池，供 AsynchronousFileChannel 执行读写与回调，使其同样受线程数与队列长度限制
+     *
+     * @return 线程池
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * 线程池指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", executor.getMaximumPoolSize());
+        result.put("active", executor.getActiveCount());
+        result.put("queued", executor.getQueue().size());
+        result.put("queueCapacity", runtimeProperties.getFileIo().getQueueCapacity());
+        result.put("completed", executor.getCompletedTaskCount());
+        result.put("rejected", rejected.get());
+        return result;
+    }
+}
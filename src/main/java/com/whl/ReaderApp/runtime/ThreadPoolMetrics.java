@@ -0,0 +1,196 @@
+package com.whl.ReaderApp.runtime;
+
+import com.whl.ReaderApp.config.RuntimeConfig;
+import com.whl.ReaderApp.config.RuntimeProperties;
+import com.whl.ReaderApp.security.PasswordHasher;
+import io.lettuce.core.EpollProvider;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.ipc.netty.resources.LoopResources;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各线程池的线程利用率
+ * <p>
+ * 按线程名前缀把线程归入各个池，每次采样计算两次采样之间每个线程的 CPU 时间占墙钟时间的比例。
+ * 事件循环空闲时阻塞在 epoll_wait/select 上不占 CPU，利用率接近 1 说明该池已饱和；
+ * 单个事件循环利用率远高于平均值，说明连接在线程间分布不均。
+ *
+ * @author whl
+ */
+@Component
+public class ThreadPoolMetrics {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 池名与线程名前缀
+     */
+    private final Map<String, String[]> pools = new LinkedHashMap<>();
+
+    @Autowired
+    private RuntimeProperties runtimeProperties;
+
+    @Autowired
+    private LoopResources serverLoopResources;
+
+    @Autowired
+    private FileIoScheduler fileIoScheduler;
+
+    /**
+     * 上次采样时各线程的 CPU 时间，只在采样线程中访问
+     */
+    private Map<Long, Long> lastCpuNanos = Collections.emptyMap();
+
+    private long lastSampleNanos;
+
+    private volatile Map<String, Object> utilization = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        // Reactor Netty 0.7 创建 LoopResources 时总会同时建好一组 NIO 事件循环，使用 epoll 时它们闲置，只统计实际使用的一组
+        String prefix = RuntimeConfig.SERVER_THREAD_PREFIX;
+        pools.put("http", serverGroup() instanceof EpollEventLoopGroup
+                ? new String[]{prefix + "select-epoll-", prefix + "server-epoll-"}
+                : new String[]{prefix + "select-nio-", prefix + "nio-"});
+        pools.put("redisIo", new String[]{"lettuce-epollEventLoop-", "lettuce-nioEventLoop-"});
+        pools.put("redisComputation", new String[]{"lettuce-eventExecutorLoop-"});
+        pools.put("fileIo", new String[]{FileIoScheduler.THREAD_PREFIX});
+        pools.put("password", new String[]{PasswordHasher.THREAD_PREFIX});
+        pools.put("scheduling", new String[]{RuntimeConfig.SCHEDULING_THREAD_PREFIX});
+        pools.put("reactorParallel", new String[]{"parallel-"});
+        pools.put("reactorElastic", new String[]{"elastic-"});
+    }
+
+    private EventLoopGroup serverGroup() {
+        return serverLoopResources.onServer(runtimeProperties.isPreferNative());
+    }
+
+    /**
+     * 定时采样，间隔由 reader.runtime.metrics-interval-ms 配置
+     */
+    @Scheduled(fixedDelayString = "${reader.runtime.metrics-interval-ms:10000}")
+    public void sample() {
+        if (!threads.isThreadCpuTimeSupported()) {
+            return;
+        }
+        if (!threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        boolean first = lastSampleNanos == 0;
+
+        Map<String, Usage> usages = new LinkedHashMap<>();
+        pools.keySet().forEach(pool -> usages.put(pool, new Usage()));
+        Map<Long, Long> cpuNanos = new HashMap<>();
+
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null) {
+                continue;
+            }
+            String pool = poolOf(info.getThreadName());
+            if (pool == null) {
+                continue;
+            }
+            long cpu = threads.getThreadCpuTime(info.getThreadId());
+            if (cpu < 0) {
+                continue;
+            }
+            cpuNanos.put(info.getThreadId(), cpu);
+
+            // 两次采样之间新建的线程按从 0 开始计算
+            long busy = cpu - lastCpuNanos.getOrDefault(info.getThreadId(), 0L);
+            Usage usage = usages.get(pool);
+            usage.threads++;
+            usage.busyNanos += busy;
+            usage.maxBusyNanos = Math.max(usage.maxBusyNanos, busy);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        usages.forEach((pool, usage) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("threads", usage.threads);
+            if (!first && elapsed > 0 && usage.threads > 0) {
+                stats.put("utilization", round((double) usage.busyNanos / elapsed / usage.threads));
+                stats.put("maxThreadUtilization", round((double) usage.maxBusyNanos / elapsed));
+            }
+            result.put(pool, stats);
+        });
+
+        lastCpuNanos = cpuNanos;
+        lastSampleNanos = now;
+        utilization = result;
+    }
+
+    private String poolOf(String threadName) {
+        for (Map.Entry<String, String[]> entry : pools.entrySet()) {
+            for (String prefix : entry.getValue()) {
+                if (threadName.startsWith(prefix)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * 传输方式、各池线程利用率（最近一个采样周期）、HTTP 事件循环积压任务与文件线程池队列
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        EventLoopGroup serverGroup = serverGroup();
+        Map<String, Object> transport = new LinkedHashMap<>();
+        transport.put("preferNative", runtimeProperties.isPreferNative());
+        transport.put("epollAvailable", Epoll.isAvailable());
+        if (!Epoll.isAvailable()) {
+            transport.put("epollUnavailableCause", String.valueOf(Epoll.unavailabilityCause()));
+        }
+        transport.put("http", serverGroup instanceof EpollEventLoopGroup ? "epoll" : "nio");
+        transport.put("redis", EpollProvider.isAvailable() ? "epoll" : "nio");
+        result.put("transport", transport);
+
+        result.put("pools", utilization);
+
+        int pending = 0;
+        for (EventExecutor executor : serverGroup) {
+            if (executor instanceof SingleThreadEventExecutor) {
+                pending += ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+        }
+        result.put("httpPendingTasks", pending);
+        result.put("fileIo", fileIoScheduler.stats());
+        return result;
+    }
+
+    private static final class Usage {
+
+        private int threads;
+
+        private long busyNanos;
+
+        private long maxBusyNanos;
+    }
+}
@@ -0,0 +1,192 @@
+package com.whl.ReaderApp.search;
+
+import com.whl.ReaderApp.config.SearchProperties;
+import com.whl.ReaderApp.domain.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 书籍相关度排序
+ * <p>
+ * 书名命中高于作者命中，完全匹配高于前缀、前缀高于包含；都未命中时按三元组（trigram）相似度做模糊匹配。
+ * 只用容量为 K 的堆保留最好的结果，不对全部候选排序。
+ *
+ * @author whl
+ */
+@Component
+public class BookRanker {
+
+    private static final Comparator<Book> TIE_BREAKER = Comparator
+            .comparing(Book::getName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Book::getAuthor, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    /**
+     * 对书籍流打分并取前 K 个
+     *
+     * @param books   候选书籍
+     * @param keyword 关键字
+     * @param k       保留数量
+     * @return 按相关度从高到低排列的书籍
+     */
+    public Flux<Book> rank(Flux<Book> books, String keyword, int k) {
+        return Flux.defer(() -> {
+            Query query = query(keyword);
+            if (query.isEmpty()) {
+                return Flux.empty();
+            }
+            return books
+                    .collect(() -> new TopK<>(k, TIE_BREAKER), (TopK<Book> top, Book book) -> {
+                        double score = score(query, book);
+                        if (score > 0) {
+                            top.offer(book, score);
+                        }
+                    })
+                    .flatMapIterable(TopK::toSortedList);
+        });
+    }
+
+    /**
+     * 编译查询
+     *
+     * @param keyword 关键字
+     * @return 查询，同一个查询只能在单个订阅内顺序使用
+     */
+    public Query query(String keyword) {
+        return new Query(TextNormalizer.normalize(keyword), searchProperties.getRanking().getFuzzyMinLength());
+    }
+
+    /**
+     * 计算书籍与查询的相关度
+     *
+     * @param query 查询
+     * @param book  书籍
+     * @return 分数，0 表示不匹配
+     */
+    public double score(Query query, Book book) {
+        SearchProperties.Ranking r = searchProperties.getRanking();
+        String name = TextNormalizer.normalize(book.getName());
+        String author = TextNormalizer.normalize(book.getAuthor());
+
+        return fieldScore(query, name, r.getNameExact(), r.getNamePrefix(), r.getNameInfix(), r.getNameFuzzy(),
+                r.getFuzzyThreshold())
+                + fieldScore(query, author, r.getAuthorExact(), r.getAuthorPrefix(), r.getAuthorInfix(),
+                r.getAuthorFuzzy(), r.getFuzzyThreshold());
+    }
+
+    private static double fieldScore(Query query, String field, double exact, double prefix, double infix,
+                                     double fuzzy, double threshold) {
+        if (field.isEmpty()) {
+            return 0;
+        }
+        if (field.equals(query.text)) {
+            return exact;
+        }
+        if (field.startsWith(query.text)) {
+            return prefix;
+        }
+        if (field.contains(query.text)) {
+            return infix;
+        }
+        if (fuzzy <= 0 || query.grams.length == 0) {
+            return 0;
+        }
+        double similarity = query.similarity(field);
+        return similarity >= threshold ? fuzzy * similarity : 0;
+    }
+
+    /**
+     * 已归一化的查询及其三元组
+     */
+    public static final class Query {
+
+        private static final long[] NO_GRAMS = new long[0];
+
+        private final String text;
+
+        /**
+         * 排序去重后的查询三元组
+         */
+        private final long[] grams;
+
+        /**
+         * 计算候选三元组的复用缓冲区
+         */
+        private long[] scratch = new long[32];
+
+        Query(String text, int fuzzyMinLength) {
+            this.text = text;
+            if (text.length() < Math.max(fuzzyMinLength, 1)) {
+                this.grams = NO_GRAMS;
+            } else {
+                long[] all = trigrams(text, new long[text.length() + 1]);
+                Arrays.sort(all);
+                int n = 0;
+                for (int i = 0; i < all.length; i++) {
+                    if (i == 0 || all[i] != all[i - 1]) {
+                        all[n++] = all[i];
+                    }
+                }
+                this.grams = Arrays.copyOf(all, n);
+            }
+        }
+
+        boolean isEmpty() {
+            return text.isEmpty();
+        }
+
+        /**
+         * 查询三元组在候选文本中出现的比例
+         *
+         * @param field 已归一化的候选文本
+         * @return 0 到 1 之间的相似度
+         */
+        double similarity(String field) {
+            int n = field.length() + 1;
+            if (scratch.length < n) {
+                scratch = new long[Math.max(n, scratch.length * 2)];
+            }
+            trigrams(field, scratch);
+            Arrays.sort(scratch, 0, n);
+
+            int i = 0;
+            int j = 0;
+            int common = 0;
+            while (i < grams.length && j < n) {
+                if (grams[i] < scratch[j]) {
+                    i++;
+                } else if (grams[i] > scratch[j]) {
+                    j++;
+                } else {
+                    common++;
+                    i++;
+                    j++;
+                }
+            }
+            return (double) common / grams.length;
+        }
+
+        /**
+         * 计算文本前补两个空格、后补一个空格后的全部三元组，每个三元组编码为一个 long
+         */
+        private static long[] trigrams(String s, long[] out) {
+            int n = s.length() + 1;
+            for (int i = 0; i < n; i++) {
+                out[i] = ((long) paddedCharAt(s, i) << 32) | ((long) paddedCharAt(s, i + 1) << 16)
+                        | paddedCharAt(s, i + 2);
+            }
+            return out;
+        }
+
+        private static char paddedCharAt(String s, int i) {
+            int j = i - 2;
+            return j >= 0 && j < s.length() ? s.charAt(j) : ' ';
+        }
+    }
+}
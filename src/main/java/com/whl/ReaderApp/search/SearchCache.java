@@ -0,0 +1,132 @@
+package com.whl.ReaderApp.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.whl.ReaderApp.config.SearchProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索结果缓存
+ * <p>
+ * 以查询为KEY缓存匹配书籍的子KEY列表，并记录写入时的书目版本号。读取时版本号不一致即视为未命中，
+ * 新增书籍只需递增版本号，无需按KEY逐个失效。
+ *
+ * @author whl
+ */
+@Component
+public class SearchCache {
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    private Cache<String, Entry> cache;
+
+    /**
+     * 不写入缓存的关键字（已归一化），如启动预热使用的关键词
+     */
+    private volatile Set<String> ignored = Collections.emptySet();
+
+    @PostConstruct
+    public void init() {
+        SearchProperties.ResultCache config = searchProperties.getResultCache();
+        cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return searchProperties.getResultCache().isEnabled();
+    }
+
+    /**
+     * 生成缓存KEY
+     *
+     * @param keyword 关键字
+     * @param limit   最大结果数
+     * @return 缓存KEY
+     */
+    public String key(String keyword, int limit) {
+        return word(keyword) + '\u0000' + limit;
+    }
+
+    private String word(String keyword) {
+        return searchProperties.getRanking().isEnabled() ? TextNormalizer.normalize(keyword) : keyword;
+    }
+
+    /**
+     * 设置不写入缓存的关键字，替换之前的设置
+     *
+     * @param keywords 关键字
+     */
+    public void ignore(Set<String> keywords) {
+        Set<String> words = new HashSet<>();
+        for (String keyword : keywords) {
+            words.add(word(keyword));
+        }
+        ignored = words;
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @param key     缓存KEY
+     * @param version 当前书目版本号
+     * @return 子KEY列表，未命中或已过期时为空
+     */
+    public List<String> get(String key, long version) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != version) {
+            cache.invalidate(key);
+            return null;
+        }
+        return entry.childKeys;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key       缓存KEY
+     * @param version   计算结果前读取的书目版本号
+     * @param childKeys 子KEY列表
+     */
+    public void put(String key, long version, List<String> childKeys) {
+        if (!ignored.isEmpty() && ignored.contains(key.substring(0, key.lastIndexOf('\u0000')))) {
+            return;
+        }
+        cache.put(key, new Entry(version, Collections.unmodifiableList(childKeys)));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static final class Entry {
+
+        private final long version;
+
+        private final List<String> childKeys;
+
+        Entry(long version, List<String> childKeys) {
+            this.version = version;
+            this.childKeys = childKeys;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.whl.ReaderApp.search;
+
+import java.text.Normalizer;
+
+/**
+ * 搜索文本归一化：全角转半角、英文转小写、常用繁体字转简体、去除空白
+ *
+ * @author whl
+ */
+public final class TextNormalizer {
+
+    /**
+     * 常用繁体字，与 {@link #SIMPLIFIED} 按位置一一对应
+     */
+    private static final String TRADITIONAL =
+            "體書國學說記語話讀寫門們開關間問聞風飛馬鳥魚龍東車長來時後會個為這過還進遠運達邊" +
+            "機樓樂愛夢傳倫偉優兒黨歷曆發變復夠將對導屬歲島帶幫廣張彈當錄從懷戰戲擊數斷無舊條" +
+            "殺氣漢滅滿燈爾獨獵現環產畫異盡眾碼禮種積窮筆節範簡紅紀約紙級細終經結給絕統網線練" +
+            "總綠緣義習聖聲聽腦與興舉藝華萬葉蘭處號蟲術衛裝見規視覺親觀計認論設許詩試誤調請謝" +
+            "識譯議護讓豐貝貓財貨貴買賣質賽趙轉輕農遊選遺鄉醫釋鐵銀錢錯鏡鐘閱陳陽隊際隨險雙雜" +
+            "雞離難雲電靈韓頁順須預領頭題顏願類顯飯館驚髮鬥魯麗齊歡劍俠戀殘亂劉詞園圖團壞聯實" +
+            "寶尋層歸慶憶應戶擇據壓標權歐溫測濟燒熱牆狀獎瑪療監確稱穩競築糧織羅職膽臺艦莊藍虛" +
+            "衝補裡複覽訊評詳誌豬貿資賞贏躍軍輪辦遙鄧鋼閃陰雖靜響養驗黃點齒";
+
+    private static final String SIMPLIFIED =
+            "体书国学说记语话读写门们开关间问闻风飞马鸟鱼龙东车长来时后会个为这过还进远运达边" +
+            "机楼乐爱梦传伦伟优儿党历历发变复够将对导属岁岛带帮广张弹当录从怀战戏击数断无旧条" +
+            "杀气汉灭满灯尔独猎现环产画异尽众码礼种积穷笔节范简红纪约纸级细终经结给绝统网线练" +
+            "总绿缘义习圣声听脑与兴举艺华万叶兰处号虫术卫装见规视觉亲观计认论设许诗试误调请谢" +
+            "识译议护让丰贝猫财货贵买卖质赛赵转轻农游选遗乡医释铁银钱错镜钟阅陈阳队际随险双杂" +
+            "鸡离难云电灵韩页顺须预领头题颜愿类显饭馆惊发斗鲁丽齐欢剑侠恋残乱刘词园图团坏联实" +
+            "宝寻层归庆忆应户择据压标权欧温测济烧热墙状奖玛疗监确称稳竞筑粮织罗职胆台舰庄蓝虚" +
+            "冲补里复览讯评详志猪贸资赏赢跃军轮办遥邓钢闪阴虽静响养验黄点齿";
+
+    private static final char[] TABLE = new char[Character.MAX_VALUE + 1];
+
+    static {
+        for (int i = 0; i < TABLE.length; i++) {
+            TABLE[i] = (char) i;
+        }
+        for (int i = 0; i < TRADITIONAL.length(); i++) {
+            TABLE[TRADITIONAL.charAt(i)] = SIMPLIFIED.charAt(i);
+        }
+    }
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * 归一化文本
+     *
+     * @param text 原始文本
+     * @return 归一化后的文本，入参为空时返回空字符串
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(nfkc.length());
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            sb.append(Character.toLowerCase(TABLE[c]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.whl.ReaderApp.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 只保留分数最高的 K 个元素，内部为容量 K 的最小堆，插入 O(log K)，内存 O(K)
+ * <p>
+ * 非线程安全，供单个订阅内顺序累积使用。
+ *
+ * @param <T> 元素类型
+ * @author whl
+ */
+public final class TopK<T> {
+
+    private final int k;
+
+    private final Comparator<Scored<T>> order;
+
+    private final PriorityQueue<Scored<T>> heap;
+
+    /**
+     * @param k          保留数量
+     * @param tieBreaker 分数相同时的排序，靠前者优先保留
+     */
+    public TopK(int k, Comparator<? super T> tieBreaker) {
+        this.k = k;
+        Comparator<Scored<T>> byScore = Comparator.comparingDouble(Scored::getScore);
+        // 堆顶为"最差"元素：分数最低，分数相同时排序靠后
+        this.order = byScore.thenComparing(Scored::getValue, tieBreaker.reversed());
+        this.heap = new PriorityQueue<>(Math.max(k, 1), order);
+    }
+
+    /**
+     * 提交候选元素
+     *
+     * @param value 元素
+     * @param score 分数
+     */
+    public void offer(T value, double score) {
+        if (k <= 0) {
+            return;
+        }
+        Scored<T> candidate = new Scored<>(value, score);
+        if (heap.size() < k) {
+            heap.add(candidate);
+        } else if (order.compare(candidate, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(candidate);
+        }
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * 按分数从高到低输出
+     *
+     * @return 结果列表
+     */
+    public List<T> toSortedList() {
+        List<Scored<T>> all = new ArrayList<>(heap);
+        all.sort(Collections.reverseOrder(order));
+        List<T> result = new ArrayList<>(all.size());
+        for (Scored<T> s : all) {
+            result.add(s.getValue());
+        }
+        return result;
+    }
+
+    private static final class Scored<T> {
+
+        private final T value;
+
+        private final double score;
+
+        Scored(T value, double score) {
+            this.value = value;
+            this.score = score;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.whl.ReaderApp.security;
+
+import com.whl.ReaderApp.config.PasswordProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 密码哈希
+ * <p>
+ * 存储格式为 pbkdf2$迭代次数$盐$哈希（盐与哈希为 Base64），算法 PBKDF2WithHmacSHA256。
+ * 不以该前缀开头的记录为旧的明文密码，校验时按明文比较，登录成功后由调用方重新哈希写回。
+ * 以该前缀开头但无法解析的记录（迭代次数不是正整数、盐或哈希不是合法的 Base64）视为不匹配且需要重新哈希。
+ * <p>
+ * 一次哈希需要数十毫秒 CPU，放在 Netty 事件循环上会阻塞同一线程上的所有连接。异步方法在独立的定长线程池中执行，
+ * 等待队列有上限，队列满时立即以 {@link RejectedExecutionException} 结束，而不是让请求无限排队直到超时。
+ *
+ * @author whl
+ */
+@Component
+public class PasswordHasher {
+
+    /**
+     * 线程名前缀，线程池指标按此归类
+     */
+    public static final String THREAD_PREFIX = "password-";
+
+    private static final String PREFIX = "pbkdf2$";
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private PasswordProperties passwordProperties;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong hashNanos = new AtomicLong();
+
+    private final AtomicLong hashes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int threads = passwordProperties.getThreads() > 0
+                ? passwordProperties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, THREAD_PREFIX + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 哈希密码
+     *
+     * @param raw 明文
+     * @return 存储格式的哈希
+     */
+    public String hash(String raw) {
+        byte[] salt = new byte[passwordProperties.getSaltBytes()];
+        random.nextBytes(salt);
+        int iterations = passwordProperties.getIterations();
+        byte[] hash = pbkdf2(raw, salt, iterations, passwordProperties.getKeyBits());
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * 校验密码，比较耗时与内容无关
+     *
+     * @param raw    明文
+     * @param stored 存储的哈希或旧的明文
+     * @return 是否匹配，记录无法解析时为 false
+     */
+    public boolean verify(String raw, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(raw.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        try {
+            byte[] expected = decoder.decode(parts[3]);
+            byte[] actual = pbkdf2(raw, decoder.decode(parts[2]), Integer.parseInt(parts[1]), expected.length * 8);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            // 迭代次数不是整数（NumberFormatException）、非法 Base64，或 PBEKeySpec 拒绝的空盐、非正的迭代次数与长度
+            return false;
+        }
+    }
+
+    /**
+     * 是否需要重新哈希：旧的明文记录、无法解析的记录，或迭代次数低于当前配置
+     *
+     * @param stored 存储的哈希或旧的明文
+     * @return 是否需要
+     */
+    public boolean needsRehash(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return true;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        try {
+            return Integer.parseInt(parts[1]) < passwordProperties.getIterations()
+                    || decoder.decode(parts[2]).length == 0
+                    || decoder.decode(parts[3]).length == 0;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 在哈希线程池中哈希密码
+     *
+     * @param raw 明文
+     * @return 存储格式的哈希，线程池繁忙时以 RejectedExecutionException 结束
+     */
+    public Mono<String> hashAsync(String raw) {
+        return submit(() -> hash(raw));
+    }
+
+    /**
+     * 在哈希线程池中校验密码，旧的明文记录直接比较
+     *
+     * @param raw    明文
+     * @param stored 存储的哈希或旧的明文
+     * @return 是否匹配，线程池繁忙时以 RejectedExecutionException 结束
+     */
+    public Mono<Boolean> verifyAsync(String raw, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return Mono.fromSupplier(() -> verify(raw, stored));
+        }
+        return submit(() -> verify(raw, stored));
+    }
+
+    private <T> Mono<T> submit(Callable<T> task) {
+        return Mono.create(sink -> {
+            Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    try {
+                        sink.success(task.call());
+                    } catch (Throwable e) {
+                        sink.error(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                sink.error(e);
+                return;
+            }
+            // 请求取消（连接断开、超时）时，尚在队列中的任务不再执行；取消的任务要 purge 后才从队列中移除，腾出名额
+            sink.onCancel(() -> {
+                if (future.cancel(false)) {
+                    executor.purge();
+                }
+            });
+        });
+    }
+
+    private byte[] pbkdf2(String raw, byte[] salt, int iterations, int keyBits) {
+        long start = System.nanoTime();
+        PBEKeySpec spec = new PBEKeySpec(raw.toCharArray(), salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+            hashNanos.addAndGet(System.nanoTime() - start);
+            hashes.incrementAndGet();
+        }
+    }
+
+    /**
+     * 线程池与哈希耗时指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long count = hashes.get();
+        result.put("iterations", passwordProperties.getIterations());
+        result.put("threads", executor.getMaximumPoolSize());
+        result.put("active", executor.getActiveCount());
+        result.put("queued", executor.getQueue().size());
+        result.put("queueCapacity", passwordProperties.getQueueCapacity());
+        result.put("completed", executor.getCompletedTaskCount());
+        result.put("rejected", rejected.get());
+        result.put("hashes", count);
+        result.put("avgHashMillis", count == 0 ? 0.0 : hashNanos.get() / 1_000_000.0 / count);
+        return result;
+    }
+}
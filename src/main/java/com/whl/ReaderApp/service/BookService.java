@@ -1,15 +1,32 @@
 package com.whl.ReaderApp.service;
 
+import com.whl.ReaderApp.catalog.CatalogProjector;
+import com.whl.ReaderApp.config.BookApiProperties;
+import com.whl.ReaderApp.config.CatalogStreamProperties;
+import com.whl.ReaderApp.config.RecommendProperties;
+import com.whl.ReaderApp.config.SearchProperties;
 import com.whl.ReaderApp.domain.Book;
-import com.whl.ReaderApp.tools.JsonUtils;
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.domain.HomePage;
+import com.whl.ReaderApp.filter.ExistenceFilter;
+import com.whl.ReaderApp.filter.ExistenceFilters;
+import com.whl.ReaderApp.hotkey.HotKeyTracker;
+import com.whl.ReaderApp.repository.AuthorIndexRepository;
+import com.whl.ReaderApp.repository.BookRepository;
+import com.whl.ReaderApp.repository.CartRepository;
+import com.whl.ReaderApp.repository.CatalogEventLog;
+import com.whl.ReaderApp.repository.SearchHistoryRepository;
+import com.whl.ReaderApp.recommend.CoOccurrenceEngine;
+import com.whl.ReaderApp.resilience.CatalogFallback;
+import com.whl.ReaderApp.search.BookRanker;
+import com.whl.ReaderApp.search.SearchCache;
 import com.whl.ReaderApp.tools.RedisKey;
 import com.whl.ReaderApp.tools.Result;
-import com.whl.ReaderApp.tools.Utils;
+import com.whl.ReaderApp.upload.CoverStore;
+import com.whl.ReaderApp.upload.CoverTooLargeException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Range;
 import org.springframework.data.redis.core.DefaultTypedTuple;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.http.codec.multipart.Part;
@@ -17,17 +34,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.function.Tuple2;
 
-import java.io.File;
-import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.ZonedDateTime;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.whl.ReaderApp.tools.RedisKey.*;
@@ -41,7 +65,55 @@ import static com.whl.ReaderApp.tools.RedisKey.*;
 public class BookService {
 
     @Autowired
-    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private SearchHistoryRepository searchHistoryRepository;
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    @Autowired
+    private BookRanker bookRanker;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private CatalogEventLog catalogEventLog;
+
+    @Autowired
+    private CatalogProjector catalogProjector;
+
+    @Autowired
+    private AuthorIndexRepository authorIndexRepository;
+
+    @Autowired
+    private CatalogStreamProperties streamProperties;
+
+    @Autowired
+    private BookApiProperties bookApiProperties;
+
+    @Autowired
+    private RecommendProperties recommendProperties;
+
+    @Autowired
+    private CoOccurrenceEngine coOccurrenceEngine;
+
+    @Autowired
+    private CatalogFallback catalogFallback;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private ExistenceFilters existenceFilters;
+
+    @Autowired
+    private CoverStore coverStore;
 
     /**
      * 搜索书籍
@@ -50,15 +122,102 @@ public class BookService {
      * @return 书籍数组
      */
     public Mono<List<Book>> search(String keyword) {
-        String redisKey = RedisKey.of(BOOK);
-
-        return redisTemplate.opsForHash().values(redisKey).collectList()
-                .map(list -> list.stream()
-                        .map(obj -> JsonUtils.toObject(obj.toString(), Book.class))
-                        .filter(Objects::nonNull)
-                        .filter(book -> book.getName().contains(keyword) || book.getAuthor().contains(keyword))
-                        .collect(Collectors.toList())
-                );
+        return search(keyword, null);
+    }
+
+    /**
+     * 搜索书籍
+     *
+     * @param keyword 关键字
+     * @param limit   最大结果数，为空时使用默认值
+     * @return 书籍数组
+     */
+    public Mono<List<Book>> search(String keyword, Integer limit) {
+        return searchStream(keyword, limit).collectList();
+    }
+
+    /**
+     * 流式搜索书籍
+     * <p>
+     * 开启相关度排序时遍历全部书籍并只保留前 limit 个；否则按原始顺序过滤，匹配数量达到上限后立即停止读取。
+     *
+     * @param keyword 关键字
+     * @param limit   最大结果数，为空时使用默认值
+     * @return 书籍流
+     */
+    public Flux<Book> searchStream(String keyword, Integer limit) {
+        int max = limit == null ? searchProperties.getLimit() : limit;
+        max = Math.min(Math.max(max, 1), searchProperties.getMaxLimit());
+
+        hotKeyTracker.touch(HotKeyTracker.SEARCH, keyword);
+
+        if (!searchCache.isEnabled()) {
+            return doSearch(keyword, max);
+        }
+
+        String cacheKey = searchCache.key(keyword, max);
+        int size = max;
+
+        // 先读版本号再计算结果，计算期间有新增时缓存项的版本号已落后，下次读取自然失效
+        return bookRepository.version().flatMapMany(version -> {
+            List<String> childKeys = searchCache.get(cacheKey, version);
+            if (childKeys != null) {
+                return findAll(childKeys).flatMapIterable(Map::values);
+            }
+            return doSearch(keyword, size)
+                    .collectList()
+                    .doOnNext(books -> {
+                        List<String> keys = books.stream()
+                                .map(BookService::childKey)
+                                .collect(Collectors.toList());
+                        searchCache.put(cacheKey, version, keys);
+                        // 缓存命中时按子KEY批量读取，Redis 不可用时由降级数据提供
+                        for (int i = 0; i < books.size(); i++) {
+                            catalogFallback.remember(keys.get(i), books.get(i));
+                        }
+                    })
+                    .flatMapIterable(books -> books);
+        });
+    }
+
+    /**
+     * 书目版本号，每次新增书籍后递增
+     *
+     * @return 版本号
+     */
+    public Mono<Long> catalogVersion() {
+        return bookRepository.version();
+    }
+
+    /**
+     * 不经缓存直接搜索
+     *
+     * @param keyword 关键字
+     * @param max     最大结果数
+     * @return 书籍流
+     */
+    private Flux<Book> doSearch(String keyword, int max) {
+        Flux<Book> books = searchProperties.getMode() == SearchProperties.Mode.SCAN
+                ? bookRepository.scan(searchProperties.getScanBatchSize())
+                : bookRepository.findAll();
+
+        if (searchProperties.getRanking().isEnabled()) {
+            return bookRanker.rank(books, keyword, max);
+        }
+
+        return books
+                .filter(book -> book.getName().contains(keyword) || book.getAuthor().contains(keyword))
+                .take(max);
+    }
+
+    /**
+     * 书籍在 Hash 中的子KEY
+     *
+     * @param book 书籍
+     * @return 子KEY
+     */
+    public static String childKey(Book book) {
+        return RedisKey.of(BOOK_CHILD, book.getName().trim(), book.getAuthor().trim());
     }
 
     /**
@@ -75,17 +234,77 @@ public class BookService {
     }
 
     /**
-     * 查询书籍
+     * 查询书籍，过滤器判断不存在时直接返回空，热点书籍经本地缓存读取
      *
      * @param childKey 子KEY
      * @return
      */
     public Mono<Book> findOneByChildKey(String childKey) {
-        String redisKey = RedisKey.of(BOOK);
+        ExistenceFilter filter = existenceFilters.getBooks();
 
-        return redisTemplate.opsForHash().get(redisKey, childKey)
-                .map(o -> JsonUtils.toObject(o.toString(), Book.class))
-                .switchIfEmpty(Mono.empty());
+        return Mono.defer(() -> {
+            if (!filter.mightContain(childKey)) {
+                return Mono.empty();
+            }
+            return hotKeyTracker.read(HotKeyTracker.BOOK, childKey, () -> bookRepository.findOne(childKey))
+                    .switchIfEmpty(Mono.fromRunnable(() -> filter.falsePositive(1)));
+        });
+    }
+
+    /**
+     * 批量查询书籍，过滤器判断不存在的ID直接跳过，本地缓存未命中的ID合并为一次 HMGET
+     * <p>
+     * 书籍写入后不再修改，热点书籍在本地缓存有效期内不会读到旧数据。
+     *
+     * @param childKeys 子KEY
+     * @return 子KEY到书籍的映射，按请求顺序排列，不存在的书籍与 null、空白ID不出现在结果中
+     */
+    public Mono<Map<String, Book>> findAll(Collection<String> childKeys) {
+        ExistenceFilter filter = existenceFilters.getBooks();
+
+        return Mono.defer(() -> {
+            List<String> keys = childKeys.stream()
+                    .filter(StringUtils::hasText)
+                    .distinct()
+                    .filter(filter::mightContain)
+                    .collect(Collectors.toList());
+            Map<String, Book> cached = new HashMap<>();
+            List<String> missing = new ArrayList<>(keys.size());
+            Set<String> promote = new HashSet<>();
+            for (String key : keys) {
+                if (hotKeyTracker.touch(HotKeyTracker.BOOK, key)) {
+                    Book book = hotKeyTracker.peek(HotKeyTracker.BOOK, key);
+                    if (book != null) {
+                        cached.put(key, book);
+                        continue;
+                    }
+                    promote.add(key);
+                }
+                missing.add(key);
+            }
+
+            Mono<Map<String, Book>> loaded = missing.isEmpty()
+                    ? Mono.just(Collections.emptyMap())
+                    : bookRepository.findAll(missing).collectMap(BookService::childKey, book -> book);
+
+            return loaded.map(found -> {
+                filter.falsePositive(missing.size() - found.size());
+                Map<String, Book> result = new LinkedHashMap<>();
+                for (String key : keys) {
+                    Book book = cached.get(key);
+                    if (book == null) {
+                        book = found.get(key);
+                        if (book != null && promote.contains(key)) {
+                            hotKeyTracker.put(HotKeyTracker.BOOK, key, book);
+                        }
+                    }
+                    if (book != null) {
+                        result.put(key, book);
+                    }
+                }
+                return result;
+            });
+        });
     }
 
     /**
@@ -101,7 +320,6 @@ public class BookService {
         String brief = book.getBrief();
         Long price = book.getPrice();
 
-        String redisKey = RedisKey.of(BOOK);
         String redisChildKey = RedisKey.of(BOOK_CHILD, name, author);
 
         if (name.isEmpty()) {
@@ -116,25 +334,66 @@ public class BookService {
             return Mono.just(Result.error(7, "书本价格有误"));
         }
 
-        String jsonBook = JsonUtils.toString(book);
+        // 过滤器判断不存在时省去存在性查询，写入不覆盖已有书籍，过滤器判断有误时同样返回"该书籍已存在"
+        ExistenceFilter filter = existenceFilters.getBooks();
 
-        return redisTemplate.opsForHash().hasKey(redisKey, redisChildKey)
+        return Mono.defer(() -> filter.mightContain(redisChildKey)
+                ? bookRepository.exists(redisChildKey).doOnNext(bo -> filter.falsePositive(bo ? 0 : 1))
+                : Mono.just(false))
                 .flatMap(bo -> {
                     if (bo) {
                         return Mono.just(Result.error(1, "该书籍已存在"));
                     } else {
-                        return redisTemplate.opsForHash().put(redisKey, redisChildKey, jsonBook)
-                                .filter(Boolean::booleanValue)
-                                .map(o -> Result.ok())
-                                .log(redisChildKey)
+                        return bookRepository.save(redisChildKey, book)
+                                .flatMap(saved -> {
+                                    if (!saved) {
+                                        return Mono.just(Result.error(1, "该书籍已存在"));
+                                    }
+                                    filter.put(redisChildKey);
+                                    // 书籍已写入，此时返回失败会让重试得到"该书籍已存在"，版本号与事件交给投影线程补写
+                                    return Mono.when(bookRepository.incrementVersion(), publish(redisChildKey))
+                                            .onErrorResume(e -> {
+                                                log.warn("[书目事件] 写入失败，等待补写：" + redisChildKey + "，" + e.getMessage());
+                                                catalogProjector.publishLater(redisChildKey);
+                                                return Mono.empty();
+                                            })
+                                            .thenReturn(Result.ok());
+                                })
                                 .switchIfEmpty(Mono.just(Result.error(2, "数据库异常")));
                     }
                 })
-                .switchIfEmpty(Mono.just(Result.error(2, "数据库异常")));
+                .switchIfEmpty(Mono.just(Result.error(2, "数据库异常")))
+                .onErrorResume(e -> Mono.just(Result.error(2, "数据库异常")));
+    }
+
+    /**
+     * 写入书目变更事件，派生数据由 {@link CatalogProjector} 异步维护
+     *
+     * @param childKey 子KEY
+     * @return 完成信号
+     */
+    private Mono<Void> publish(String childKey) {
+        if (!streamProperties.isEnabled()) {
+            return Mono.empty();
+        }
+        return catalogEventLog.append(CatalogEvent.BOOK_ADDED, childKey).then();
+    }
+
+    /**
+     * 按作者查询书籍，数据来自异步维护的作者索引
+     *
+     * @param author 作者
+     * @return 书籍数组
+     */
+    public Mono<List<Book>> findByAuthor(String author) {
+        return authorIndexRepository.find(author.trim())
+                .collectList()
+                .flatMapMany(bookRepository::findAll)
+                .collectList();
     }
 
     /**
-     * 上传封面文件
+     * 上传封面文件，按内容哈希存储，重复内容返回已有地址
      *
      * @param multiValueMap 表单
      * @return 处理结果
@@ -154,26 +413,14 @@ public class BookService {
                 return Mono.just(Result.error(3, "不允许上传该格式的文件"));
             }
 
-            String fileName = ZonedDateTime.now().toEpochSecond()
-                    + "_" + Utils.randomString(6) + "." + ext;
-
-            String filePath = "upload" + File.separator + fileName;
-
-            // 目录
-            File dir = new File("upload");
-            if (!dir.exists()) {
-                dir.mkdir();
-            }
-
-            File file = new File(filePath);
-            if (!file.exists()) {
-                try {
-                    file.createNewFile();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-            return part.transferTo(file).thenReturn(Result.ok(filePath));
+            return coverStore.store(part, ext)
+                    .<Result<?>>map(Result::ok)
+                    .onErrorResume(CoverTooLargeException.class, e -> Mono.just(Result.error(4, "文件大小超过限制")))
+                    .onErrorResume(RejectedExecutionException.class, e -> Mono.just(Result.error(5, "服务繁忙")))
+                    .onErrorResume(e -> {
+                        log.warn("[封面] 保存失败：" + e.getMessage());
+                        return Mono.just(Result.error(1, "上传文件异常"));
+                    });
         }
 
         return Mono.just(Result.error(1, "上传文件异常"));
@@ -187,11 +434,11 @@ public class BookService {
      * @return 是否成功
      */
     public Mono<Result<Object>> addSearchHistory(String acc, String keyword) {
-        String redisKey = RedisKey.of(BOOK_SEARCH_HISTORY, acc);
-
-        return redisTemplate.opsForZSet().add(redisKey, keyword, Instant.now().toEpochMilli())
+        return Mono.zip(searchHistoryRepository.add(acc, keyword, Instant.now().toEpochMilli()),
+                searchHistoryRepository.incrementTrending(keyword))
                 .flatMap(bo -> Mono.just(Result.ok()))
-                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")));
+                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")))
+                .onErrorResume(e -> Mono.just(Result.error(2, "数据库连接异常")));
     }
 
     /**
@@ -201,10 +448,27 @@ public class BookService {
      * @return 搜索历史数组
      */
     public Mono<List<String>> getSearchHistory(String acc) {
-        String redisKey = RedisKey.of(BOOK_SEARCH_HISTORY, acc);
-        Range range = Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive(-1L));
+        return searchHistoryRepository.range(acc).collectList();
+    }
+
+    /**
+     * 用户搜索历史版本号，每次写入后递增
+     *
+     * @param acc 用户帐号
+     * @return 版本号
+     */
+    public Mono<Long> historyVersion(String acc) {
+        return searchHistoryRepository.version(acc);
+    }
 
-        return redisTemplate.opsForZSet().range(redisKey, range).collectList();
+    /**
+     * 查找全站热门关键词
+     *
+     * @param size 数量
+     * @return 按热度降序的关键词
+     */
+    public Mono<List<String>> getTrending(int size) {
+        return searchHistoryRepository.trending(size).collectList();
     }
 
     /**
@@ -214,11 +478,10 @@ public class BookService {
      * @return 结果
      */
     public Mono<Result<Object>> delSearchHistory(String acc) {
-        String redisKey = RedisKey.of(BOOK_SEARCH_HISTORY, acc);
-
-        return redisTemplate.opsForZSet().delete(redisKey)
+        return searchHistoryRepository.delete(acc)
                 .map(bo -> Result.ok())
-                .switchIfEmpty(Mono.just(Result.error(1, "数据库连接异常")));
+                .switchIfEmpty(Mono.just(Result.error(1, "数据库连接异常")))
+                .onErrorResume(e -> Mono.just(Result.error(1, "数据库连接异常")));
     }
 
     /**
@@ -231,13 +494,69 @@ public class BookService {
      * @return 结果
      */
     public Mono<Result<Object>> addToShop(String acc, String bookName, String author, Integer score) {
-        String redisKey = RedisKey.of(BOOK_SHOP, acc);
         String value = RedisKey.of(BOOK_SHOP_CHILD, bookName, author);
 
+        return cartRepository.add(acc, value, score)
+                .flatMap(added -> recordCoOccurrence(acc, value, added).thenReturn(Result.ok()))
+                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")))
+                .onErrorResume(e -> Mono.just(Result.error(2, "数据库连接异常")));
+    }
 
-        return redisTemplate.opsForZSet().add(redisKey, value, score)
-                .flatMap(bo -> Mono.just(Result.ok()))
-                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")));
+    /**
+     * 新书加入购物车时与购物车中已有的书配对，只更新数量时不重复计数
+     *
+     * @param acc   用户账号
+     * @param value 新加入的条目
+     * @param added 是否为新增条目
+     * @return 完成信号，读取购物车失败时忽略
+     */
+    private Mono<Void> recordCoOccurrence(String acc, String value, boolean added) {
+        if (!added || !recommendProperties.isEnabled()) {
+            return Mono.empty();
+        }
+        return cartRepository.rangeWithScores(acc)
+                .map(ZSetOperations.TypedTuple::getValue)
+                .filter(item -> !item.equals(value))
+                .take(recommendProperties.getMaxPairsPerAdd())
+                .collectList()
+                .doOnNext(others -> coOccurrenceEngine.record(value, others))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("[共现推荐] 读取购物车失败：" + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 与某本书最常一起购买的书籍
+     *
+     * @param bookName 书名
+     * @param author   作者
+     * @param size     数量，为空时使用默认值
+     * @return 书籍数组
+     */
+    public Mono<List<Book>> recommend(String bookName, String author, Integer size) {
+        String childKey = RedisKey.of(BOOK_CHILD, bookName, author);
+
+        return coOccurrenceEngine.recommend(childKey, size == null ? recommendProperties.getSize() : size)
+                .collectList();
+    }
+
+    /**
+     * 按购物车推荐书籍
+     *
+     * @param acc  用户账号
+     * @param size 数量，为空时使用默认值
+     * @return 书籍数组
+     */
+    public Mono<List<Book>> recommendForShop(String acc, Integer size) {
+        int max = size == null ? recommendProperties.getSize() : size;
+
+        return cartRepository.rangeWithScores(acc)
+                .map(ZSetOperations.TypedTuple::getValue)
+                .collectList()
+                .flatMapMany(cart -> coOccurrenceEngine.recommend(cart, max))
+                .collectList();
     }
 
     /**
@@ -249,29 +568,136 @@ public class BookService {
      * @return 结果
      */
     public Mono<Result<Object>> delFromShop(String acc, String bookName, String author) {
-        String redisKey = RedisKey.of(BOOK_SHOP, acc);
         String value = RedisKey.of(bookName, author);
 
-        return redisTemplate.opsForZSet().remove(redisKey, value)
+        return cartRepository.remove(acc, value)
                 .flatMap(bo -> Mono.just(Result.ok()))
-                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")));
+                .switchIfEmpty(Mono.just(Result.error(2, "数据库连接异常")))
+                .onErrorResume(e -> Mono.just(Result.error(2, "数据库连接异常")));
     }
 
     /**
      * 查询购物车
+     * <p>
+     * 热点购物车先读版本号，再按帐号与版本号经本地缓存读取，购物车任何写入都会使缓存项失效，
+     * 返回的内容不会落后于同一请求中生成 ETag 的版本号。
      *
      * @param acc 账号
      * @return
      */
     public Mono<List<DefaultTypedTuple<Book>>> getShop(String acc) {
-        String redisKey = RedisKey.of(BOOK_SHOP, acc);
-        Range range = Range.of(Range.Bound.inclusive(0L), Range.Bound.inclusive(-1L));
-
-        return redisTemplate.opsForZSet().rangeWithScores(redisKey, range).flatMap(o -> {
-            DefaultTypedTuple<String> old = (DefaultTypedTuple<String>) o;
-            return findOneByChildKey(old.getValue())
-                    .map(book -> new DefaultTypedTuple(book, old.getScore()))
-                    .switchIfEmpty(Mono.empty());
-        }).collectList().filter(Objects::nonNull);
+        return Mono.defer(() -> {
+            if (!hotKeyTracker.touch(HotKeyTracker.CART, acc)) {
+                return loadShop(acc);
+            }
+            return shopVersion(acc).flatMap(version ->
+                    hotKeyTracker.cached(HotKeyTracker.CART, acc + "@" + version, () -> loadShop(acc)));
+        });
+    }
+
+    /**
+     * 读取购物车
+     * <p>
+     * 先取出购物车全部条目，再用一次 HMGET 取回书籍，结果按购物车中的顺序排列
+     *
+     * @param acc 账号
+     * @return
+     */
+    private Mono<List<DefaultTypedTuple<Book>>> loadShop(String acc) {
+        return cartRepository.rangeWithScores(acc).collectList().flatMap(items -> {
+            List<String> childKeys = items.stream()
+                    .map(ZSetOperations.TypedTuple::getValue)
+                    .collect(Collectors.toList());
+
+            return findAll(childKeys).map(books -> items.stream()
+                    .filter(item -> books.containsKey(item.getValue()))
+                    .map(item -> new DefaultTypedTuple<>(books.get(item.getValue()), item.getScore()))
+                    .collect(Collectors.toList()));
+        }).filter(Objects::nonNull);
+    }
+
+    /**
+     * 购物车版本号，每次写入后递增
+     *
+     * @param acc 账号
+     * @return 版本号
+     */
+    public Mono<Long> shopVersion(String acc) {
+        return cartRepository.version(acc);
+    }
+
+    /**
+     * 首页聚合数据
+     * <p>
+     * 购物车、搜索历史、热门关键词三个分区同时订阅，Redis 模式下命令共用同一条 Lettuce 连接流水线发送，
+     * 总耗时取决于最慢的分区而非三者之和。每个分区有独立的超时，超时或出错时以空数据返回并记录在 degraded 中。
+     *
+     * @param acc 账号
+     * @return 首页数据
+     */
+    public Mono<HomePage> home(String acc) {
+        BookApiProperties.Home config = bookApiProperties.getHome();
+
+        return Mono.zip(
+                section("shop", getShop(acc), config.getShopTimeout()),
+                section("history", getSearchHistory(acc), config.getHistoryTimeout()),
+                section("trending", getTrending(config.getTrendingSize()), config.getTrendingTimeout()))
+                .map(sections -> {
+                    HomePage page = new HomePage();
+                    page.setShop(sections.getT1().value);
+                    page.setHistory(sections.getT2().value);
+                    page.setTrending(sections.getT3().value);
+                    for (Section<?> section : Arrays.asList(sections.getT1(), sections.getT2(), sections.getT3())) {
+                        page.getLatency().put(section.name, section.millis);
+                        if (section.degraded) {
+                            page.getDegraded().add(section.name);
+                        }
+                    }
+                    return page;
+                });
+    }
+
+    /**
+     * 为首页分区加上超时与计时，超时、出错或无数据时返回空列表
+     *
+     * @param name   分区名
+     * @param source 数据源
+     * @param budget 超时时间
+     * @param <T>    元素类型
+     * @return 分区结果
+     */
+    private <T> Mono<Section<T>> section(String name, Mono<List<T>> source, Duration budget) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source
+                    .timeout(budget)
+                    .map(value -> new Section<>(name, value, false))
+                    .defaultIfEmpty(new Section<>(name, Collections.emptyList(), false))
+                    .onErrorResume(e -> {
+                        log.warn("首页分区 {} 降级：{}", name, e.toString());
+                        return Mono.just(new Section<>(name, Collections.emptyList(), true));
+                    })
+                    .doOnNext(section -> section.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * 首页分区结果
+     */
+    private static final class Section<T> {
+
+        private final String name;
+
+        private final List<T> value;
+
+        private final boolean degraded;
+
+        private long millis;
+
+        Section(String name, List<T> value, boolean degraded) {
+            this.name = name;
+            this.value = value;
+            this.degraded = degraded;
+        }
     }
-}
\ No newline at end of file
+}
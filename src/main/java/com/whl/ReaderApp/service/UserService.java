@@ -1,78 +1,124 @@
 package com.whl.ReaderApp.service;
 
 import com.whl.ReaderApp.domain.User;
-import com.whl.ReaderApp.tools.JsonUtils;
-import com.whl.ReaderApp.tools.RedisKey;
+import com.whl.ReaderApp.filter.ExistenceFilter;
+import com.whl.ReaderApp.filter.ExistenceFilters;
+import com.whl.ReaderApp.repository.UserRepository;
+import com.whl.ReaderApp.security.PasswordHasher;
 import com.whl.ReaderApp.tools.Result;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
-import static com.whl.ReaderApp.tools.RedisKey.USER;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author yyy
  */
+@Slf4j
 @Service
 @Transactional(rollbackFor = Exception.class)
 public class UserService {
 
     @Autowired
-    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExistenceFilters existenceFilters;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     /**
      * 用户注册处理
+     * <p>
+     * 过滤器判断帐号不存在时省去存在性查询直接写入，写入不覆盖已有帐号，过滤器判断有误时同样返回"账号已存在"。
+     * 密码在哈希线程池中哈希后保存，线程池繁忙时返回"服务繁忙"
      *
      * @param user 用户实体
      * @return 处理结果
      */
     public Mono<Result> reg(User user) {
-        String redisKey = RedisKey.of(USER);
-        String jsonUser = JsonUtils.toString(user);
+        String account = user.getAccount();
+        ExistenceFilter accounts = existenceFilters.getAccounts();
 
-        return redisTemplate.opsForHash().hasKey(redisKey, user.getAccount())
-                .flatMap(bo -> {
+        return Mono.defer(() -> accounts.mightContain(account)
+                ? userRepository.exists(account).doOnNext(bo -> accounts.falsePositive(bo ? 0 : 1))
+                : Mono.just(false))
+                .<Result>flatMap(bo -> {
                     if (bo) {
                         return Mono.just(Result.error(1, "账号已存在"));
                     } else {
-                        return redisTemplate.opsForHash().put(redisKey, user.getAccount(), jsonUser)
+                        return passwordHasher.hashAsync(user.getPassword())
+                                .flatMap(hash -> userRepository.save(new User(account, hash)))
                                 .map(flag -> {
                                     if (flag) {
+                                        accounts.put(account);
                                         return Result.ok();
                                     } else {
-                                        return Result.error(2, "数据库Save失败");
+                                        return Result.error(1, "账号已存在");
                                     }
                                 })
                                 .switchIfEmpty(Mono.just(Result.error(2, "数据库Save失败")));
                     }
-                });
+                })
+                .onErrorResume(RejectedExecutionException.class, e -> Mono.just(Result.error(3, "服务繁忙")))
+                .onErrorResume(e -> Mono.just(Result.error(2, "数据库异常")));
     }
 
     /**
-     * 用户登录处理
+     * 用户登录处理，过滤器判断帐号不存在时不再查询存储
+     * <p>
+     * 密码在哈希线程池中校验，线程池繁忙时返回"服务繁忙"。旧的明文记录或迭代次数低于当前配置的记录，
+     * 登录成功后在后台重新哈希写回，登录不等待写回完成，写回失败不影响本次登录。
      *
      * @param user 用户实体
      * @return 处理结果
      */
     public Mono<Result<Object>> login(User user) {
-        String redisKey = RedisKey.of(USER);
+        ExistenceFilter accounts = existenceFilters.getAccounts();
 
-        return redisTemplate.opsForHash().hasKey(redisKey, user.getAccount())
-                .filter(bo -> bo)
-                .flatMap(bo -> redisTemplate.opsForHash().get(redisKey, user.getAccount())
-                        .filter(json -> (json != null) && !json.toString().isEmpty())
-                        .map(json -> {
-                            User dbUser = JsonUtils.toObject(json.toString(), User.class);
+        return Mono.defer(() -> {
+            if (!accounts.mightContain(user.getAccount())) {
+                return Mono.just(Result.error(1, "账号不存在"));
+            }
+            return userRepository.findOne(user.getAccount())
+                    .flatMap(dbUser -> passwordHasher.verifyAsync(user.getPassword(), dbUser.getPassword())
+                            .flatMap(matched -> {
+                                if (!matched) {
+                                    return Mono.just(Result.<Object>error(2, "密码不正确"));
+                                }
+                                if (!passwordHasher.needsRehash(dbUser.getPassword())) {
+                                    return Mono.just(Result.ok());
+                                }
+                                rehash(dbUser, user.getPassword()).subscribe();
+                                return Mono.just(Result.ok());
+                            }))
+                    .switchIfEmpty(Mono.fromSupplier(() -> {
+                        accounts.falsePositive(1);
+                        return Result.error(1, "账号不存在");
+                    }));
+        })
+                .onErrorResume(RejectedExecutionException.class, e -> Mono.just(Result.error(4, "服务繁忙")))
+                .onErrorResume(e -> Mono.just(Result.error(3, "数据库异常")));
+    }
 
-                            if (dbUser != null && dbUser.getPassword().equals(user.getPassword())) {
-                                return Result.ok();
-                            } else {
-                                return Result.error(2, "密码不正确");
-                            }
-                        })
-                        .switchIfEmpty(Mono.just(Result.error(1, "账号不存在"))))
-                .switchIfEmpty(Mono.just(Result.error(1, "账号不存在")));
+    /**
+     * 按当前配置重新哈希密码并写回
+     *
+     * @param dbUser 存储中的用户
+     * @param raw    已校验的明文密码
+     * @return 完成信号，失败时忽略
+     */
+    private Mono<Void> rehash(User dbUser, String raw) {
+        return passwordHasher.hashAsync(raw)
+                .flatMap(hash -> userRepository.update(new User(dbUser.getAccount(), hash)))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("帐号 {} 密码重新哈希失败，下次登录重试：{}", dbUser.getAccount(), e.toString());
+                    return Mono.empty();
+                });
     }
-}
\ No newline at end of file
+}
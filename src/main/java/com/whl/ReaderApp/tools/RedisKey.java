@@ -9,9 +9,16 @@ public class RedisKey {
     public static final String USER = "Users";
     public static final String BOOK = "Books";
     public static final String BOOK_CHILD = "%s:%s";
+    public static final String BOOK_VERSION = "BooksVersion";
+    public static final String BOOK_EVENTS = "BookEvents";
+    public static final String BOOK_AUTHOR = "BookAuthor:%s";
     public static final String BOOK_SEARCH_HISTORY = "BookSearchHistory:%s";
+    public static final String BOOK_SEARCH_TRENDING = "BookSearchTrending";
+    public static final String BOOK_NEIGHBORS = "BookNeighbors:%s";
     public static final String BOOK_SHOP = "BookShop:%s";
     public static final String BOOK_SHOP_CHILD = "%s:%s";
+    public static final String BOOK_SHOP_VERSION = "BookShopVersion:%s";
+    public static final String BOOK_SEARCH_HISTORY_VERSION = "BookSearchHistoryVersion:%s";
 
     public static String of(String key, Object... args) {
         return String.format(key, args);
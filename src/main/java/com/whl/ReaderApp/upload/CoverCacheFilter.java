@@ -0,0 +1,47 @@
+package com.whl.ReaderApp.upload;
+
+import com.whl.ReaderApp.config.UploadProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * 为 /upload/** 的成功响应加上长期缓存头
+ * <p>
+ * 封面文件名是内容哈希（旧文件名是时间戳加随机串），同一地址的内容不会变化，可以标记为 immutable。
+ * 只在 2xx 响应上添加，404 等错误不会被客户端或代理长期缓存。
+ *
+ * @author whl
+ */
+@Component
+public class CoverCacheFilter implements WebFilter {
+
+    private static final String PATH_PREFIX = "/upload/";
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if ((method == HttpMethod.GET || method == HttpMethod.HEAD)
+                && exchange.getRequest().getPath().value().startsWith(PATH_PREFIX)) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                HttpStatus status = response.getStatusCode();
+                if (status == null || status.is2xxSuccessful()) {
+                    response.getHeaders().set(HttpHeaders.CACHE_CONTROL, uploadProperties.getCacheControl());
+                }
+                return Mono.empty();
+            });
+        }
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,212 @@
+package com.whl.ReaderApp.upload;
+
+import com.whl.ReaderApp.config.UploadProperties;
+import com.whl.ReaderApp.runtime.FileIoScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按内容寻址的封面存储
+ * <p>
+ * 上传内容边写入临时文件边计算 SHA-256，完成后移动到 ab/cd/哈希.扩展名（取哈希前两段分目录，避免单个目录下文件过多）。
+ * 目标文件已存在说明同样的内容上传过，直接删除临时文件并返回已有地址。
+ * <p>
+ * 临时目录与存储目录同级，通常在同一文件系统上，移动是原子的重命名：并发上传同一内容时后者覆盖前者，内容相同，
+ * 读取方也不会看到写了一半的文件。同样内容以不同扩展名上传时按扩展名各存一份。
+ * <p>
+ * 临时文件创建时权限为 0600，移动会保留权限，移动前改为 0644，以便与应用不同用户的静态资源服务读取。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+public class CoverStore {
+
+    /**
+     * 返回给客户端的地址前缀，与 /upload/** 资源路由对应
+     */
+    private static final String URL_PREFIX = "upload/";
+
+    /**
+     * 临时目录与存储目录同级，不在资源路由下，写了一半的文件不会被访问到
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 封面文件权限，不支持 POSIX 权限的文件系统上为空
+     */
+    private static final Set<PosixFilePermission> PERMISSIONS =
+            FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                    ? PosixFilePermissions.fromString("rw-r--r--")
+                    : null;
+
+    @Autowired
+    private UploadProperties uploadProperties;
+
+    @Autowired
+    private FileIoScheduler fileIoScheduler;
+
+    private final AtomicLong stored = new AtomicLong();
+
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private final AtomicLong deduplicatedBytes = new AtomicLong();
+
+    /**
+     * 保存上传文件
+     *
+     * @param part 文件
+     * @param ext  扩展名（已校验并转为小写）
+     * @return 访问地址，超过大小限制时以 CoverTooLargeException 结束，文件线程池繁忙时以 RejectedExecutionException 结束
+     */
+    public Mono<String> store(FilePart part, String ext) {
+        Path root = Paths.get(uploadProperties.getDir());
+        return Mono.fromCallable(() -> {
+            Path tempDir = Files.createDirectories(root.resolveSibling(root.getFileName() + TEMP_SUFFIX));
+            return Files.createTempFile(tempDir, "cover", ".part");
+        })
+                .subscribeOn(fileIoScheduler.scheduler())
+                .flatMap(temp -> write(part, temp)
+                        .publishOn(fileIoScheduler.scheduler())
+                        .map(written -> commit(root, temp, written, ext))
+                        // 失败、取消或重复内容时清理临时文件，移动成功后临时文件已不存在
+                        .doFinally(signal -> deleteQuietly(temp)));
+    }
+
+    /**
+     * 写入临时文件，同时逐块计算哈希
+     */
+    private Mono<Written> write(FilePart part, Path temp) {
+        MessageDigest digest = sha256();
+        AtomicLong size = new AtomicLong();
+        long maxBytes = uploadProperties.getMaxBytes();
+
+        return Mono.using(
+                // 不指定线程池时 JDK 使用无上限的默认线程池执行写入，这里改用文件读写线程池
+                () -> AsynchronousFileChannel.open(temp, EnumSet.of(StandardOpenOption.WRITE), fileIoScheduler.executor()),
+                channel -> DataBufferUtils.write(part.content().doOnNext(buffer -> {
+                    if (size.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                        DataBufferUtils.release(buffer);
+                        throw new CoverTooLargeException(maxBytes);
+                    }
+                    // asByteBuffer 与数据块共享内容，不移动读指针，随后写入文件的仍是完整数据
+                    digest.update(buffer.asByteBuffer());
+                }), channel, 0)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.fromSupplier(() -> new Written(hex(digest.digest()), size.get()))),
+                channel -> {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        log.warn("[封面] 关闭临时文件失败：" + e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 移动到按哈希命名的位置，已存在时视为重复上传
+     */
+    private String commit(Path root, Path temp, Written written, String ext) {
+        String hash = written.hash;
+        String relative = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + ext;
+        Path target = root.resolve(relative);
+        try {
+            if (Files.exists(target)) {
+                deduplicated(written);
+            } else {
+                Files.createDirectories(target.getParent());
+                if (PERMISSIONS != null) {
+                    Files.setPosixFilePermissions(temp, PERMISSIONS);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                stored.incrementAndGet();
+                storedBytes.addAndGet(written.size);
+            }
+        } catch (FileAlreadyExistsException e) {
+            deduplicated(written);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return URL_PREFIX + relative;
+    }
+
+    private void deduplicated(Written written) {
+        deduplicated.incrementAndGet();
+        deduplicatedBytes.addAndGet(written.size);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[封面] 删除临时文件失败：" + path);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 存储与去重指标
+     *
+     * @return 指标
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("stored", stored.get());
+        result.put("storedBytes", storedBytes.get());
+        result.put("deduplicated", deduplicated.get());
+        result.put("deduplicatedBytes", deduplicatedBytes.get());
+        return result;
+    }
+
+    private static final class Written {
+
+        private final String hash;
+
+        private final long size;
+
+        private Written(String hash, long size) {
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.whl.ReaderApp.upload;
+
+/**
+ * 上传文件超过大小限制
+ *
+ * @author whl
+ */
+public class CoverTooLargeException extends RuntimeException {
+
+    public CoverTooLargeException(long maxBytes) {
+        super("文件超过 " + maxBytes + " 字节");
+    }
+}
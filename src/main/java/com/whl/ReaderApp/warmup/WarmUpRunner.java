@@ -0,0 +1,249 @@
+package com.whl.ReaderApp.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whl.ReaderApp.config.WarmUpProperties;
+import com.whl.ReaderApp.domain.Book;
+import com.whl.ReaderApp.domain.HomePage;
+import com.whl.ReaderApp.domain.User;
+import com.whl.ReaderApp.hotkey.HotKeyTracker;
+import com.whl.ReaderApp.search.SearchCache;
+import com.whl.ReaderApp.service.BookService;
+import com.whl.ReaderApp.tools.JsonUtils;
+import com.whl.ReaderApp.tools.Result;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热
+ * <p>
+ * 应用启动完成后依次执行：连接存储（Lettuce 连接为懒加载，第一次命令才建立连接）、
+ * 预热 JSON 编解码（Jackson 首次处理某个类型时需要反射分析）、以热门关键词填充搜索缓存、
+ * 最后通过本机 HTTP 多轮调用只读路由，让路由、编解码、压缩和搜索路径完成 JIT 编译（没有内嵌 HTTP 服务时跳过），
+ * 任一响应不是 2xx 即视为失败。
+ * <p>
+ * 预热期间预热账号与备用关键词不计入热点统计、不写入搜索缓存，以免挤占真实流量的名额。
+ * 备用关键词的搜索每次都要遍历全部图书，路由预热中只调用 probeSearchIterations 轮。
+ * <p>
+ * 全部完成前 {@link #isReady()} 为 false，负载均衡通过 /api/admin/ready 判断是否可以导入流量。
+ * 任一步骤失败时整体稍后重试。
+ *
+ * @author whl
+ */
+@Slf4j
+@Component
+public class WarmUpRunner {
+
+    /**
+     * 预热调用路由使用的账号，不对应真实用户
+     */
+    private static final String ACCOUNT = "__warmup__";
+
+    /**
+     * 没有内嵌 HTTP 服务
+     */
+    private static final int NO_SERVER = -1;
+
+    @Autowired
+    private WarmUpProperties warmUpProperties;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HotKeyTracker hotKeyTracker;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    private volatile boolean ready;
+
+    private volatile int attempts;
+
+    private volatile String lastError;
+
+    private final Map<String, Long> stepMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!warmUpProperties.isEnabled()) {
+            ready = true;
+            return;
+        }
+        run(port(event.getApplicationContext())).subscribe();
+    }
+
+    private static int port(ApplicationContext context) {
+        if (context instanceof ReactiveWebServerApplicationContext) {
+            ReactiveWebServerApplicationContext webContext = (ReactiveWebServerApplicationContext) context;
+            if (webContext.getWebServer() != null) {
+                return webContext.getWebServer().getPort();
+            }
+        }
+        log.info("[预热] 没有内嵌 HTTP 服务，跳过路由预热");
+        return NO_SERVER;
+    }
+
+    private Mono<Void> run(int port) {
+        return Mono.defer(() -> {
+            attempts++;
+            long start = System.nanoTime();
+            ignoreWarmUpKeys(true);
+            return step("storage", bookService.catalogVersion().then())
+                    .then(step("codec", Mono.fromRunnable(this::primeCodecs)))
+                    .then(keywords().flatMap(words -> step("searchCache", Flux.fromIterable(words)
+                            .concatMap(bookService::search)
+                            .then())
+                            .then(port == NO_SERVER ? Mono.empty() : step("routes", exerciseRoutes(port, words)))))
+                    .doOnSuccess(o -> {
+                        ignoreWarmUpKeys(false);
+                        ready = true;
+                        lastError = null;
+                        log.info("[预热] 完成，耗时 {}ms：{}",
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), stepMillis);
+                    });
+        }).onErrorResume(e -> {
+            lastError = e.toString();
+            log.warn("[预热] 失败，{} 后重试：{}", warmUpProperties.getRetryInterval(), lastError);
+            return Mono.delay(warmUpProperties.getRetryInterval()).then(run(port));
+        });
+    }
+
+    /**
+     * 预热账号与备用关键词是否排除在热点统计与搜索缓存之外，预热完成后恢复
+     * <p>
+     * 热门关键词来自真实搜索，照常写入搜索缓存，这正是预热的目的
+     *
+     * @param ignore 是否排除
+     */
+    private void ignoreWarmUpKeys(boolean ignore) {
+        if (!ignore) {
+            hotKeyTracker.ignore(Collections.emptySet());
+            searchCache.ignore(Collections.emptySet());
+            return;
+        }
+        Set<String> keys = new HashSet<>(warmUpProperties.getProbeKeywords());
+        searchCache.ignore(keys);
+        keys.add(ACCOUNT);
+        hotKeyTracker.ignore(keys);
+    }
+
+    /**
+     * 计时并限时执行一个步骤
+     *
+     * @param name 步骤名
+     * @param task 步骤
+     * @return 完成信号
+     */
+    private Mono<Void> step(String name, Mono<Void> task) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return task.timeout(warmUpProperties.getTimeout())
+                    .doOnSuccess(o -> stepMillis.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        });
+    }
+
+    /**
+     * 用典型数据走一遍 WebFlux 编解码使用的 ObjectMapper 与存储使用的 {@link JsonUtils}
+     */
+    private void primeCodecs() {
+        Book book = new Book("warmup", "warmup", "warmup", "warmup.png", 1L);
+        User user = new User("warmup", "warmup");
+        List<Object> samples = Arrays.asList(book, user, Result.ok(book), Result.ok(Collections.singletonList(book)),
+                Result.error(1, "warmup"), new HomePage());
+        try {
+            for (Object sample : samples) {
+                byte[] json = objectMapper.writeValueAsBytes(sample);
+                objectMapper.readValue(json, sample.getClass());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JsonUtils.toObject(JsonUtils.toString(book), Book.class);
+        JsonUtils.toObject(JsonUtils.toString(user), User.class);
+    }
+
+    /**
+     * 热门关键词，没有时使用配置的关键词
+     *
+     * @return 关键词
+     */
+    private Mono<List<String>> keywords() {
+        return bookService.getTrending(warmUpProperties.getTrendingSize())
+                .map(words -> words.isEmpty() ? warmUpProperties.getProbeKeywords() : words);
+    }
+
+    /**
+     * 通过本机 HTTP 多轮调用只读路由，不写入任何数据，任一响应不是 2xx 时以错误结束
+     *
+     * @param port     本机端口
+     * @param keywords 搜索关键词
+     * @return 完成信号
+     */
+    private Mono<Void> exerciseRoutes(int port, List<String> keywords) {
+        WebClient client = WebClient.create("http://127.0.0.1:" + port);
+        // 备用关键词不写入搜索缓存，每轮都是完整搜索
+        int searchRounds = keywords.equals(warmUpProperties.getProbeKeywords())
+                ? Math.min(warmUpProperties.getProbeSearchIterations(), warmUpProperties.getIterations())
+                : warmUpProperties.getIterations();
+
+        return Flux.range(0, warmUpProperties.getIterations())
+                .flatMap(i -> Flux.just(
+                        client.get().uri("/api/book/search/{word}", keywords.get(i % keywords.size())),
+                        client.get().uri("/api/book/shop/{account}", ACCOUNT),
+                        client.get().uri("/api/book/search/history/{account}", ACCOUNT),
+                        client.get().uri("/api/book/home/{account}", ACCOUNT))
+                        .skip(i < searchRounds ? 0 : 1)
+                        .concatMap(spec -> spec.header("Accept-Encoding", "gzip")
+                                .exchange()
+                                // 读完响应体释放连接后再检查状态
+                                .flatMap(response -> response.bodyToMono(byte[].class)
+                                        .then(response.statusCode().is2xxSuccessful()
+                                                ? Mono.<Void>empty()
+                                                : Mono.error(new IllegalStateException(
+                                                "路由返回 " + response.statusCode().value()))))),
+                        warmUpProperties.getConcurrency())
+                .then();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 预热状态
+     *
+     * @return 状态
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", ready);
+        result.put("attempts", attempts);
+        result.put("lastError", lastError);
+        synchronized (stepMillis) {
+            result.put("stepMillis", new LinkedHashMap<>(stepMillis));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.whl.ReaderApp.catalog;
+
+import com.whl.ReaderApp.config.CatalogStreamProperties;
+import com.whl.ReaderApp.domain.CatalogEvent;
+import com.whl.ReaderApp.domain.EventLogStats;
+import com.whl.ReaderApp.repository.memory.MemoryCatalogEventLog;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class CatalogProjectorTests {
+
+    private CatalogStreamProperties properties;
+
+    private MemoryCatalogEventLog eventLog;
+
+    private RecordingProjection projection;
+
+    private CatalogProjector projector;
+
+    @Before
+    public void setUp() {
+        properties = new CatalogStreamProperties();
+        properties.setMaxLength(2);
+
+        eventLog = new MemoryCatalogEventLog();
+        ReflectionTestUtils.setField(eventLog, "streamProperties", properties);
+
+        projection = new RecordingProjection();
+        projector = new CatalogProjector();
+        ReflectionTestUtils.setField(projector, "catalogEventLog", eventLog);
+        ReflectionTestUtils.setField(projector, "streamProperties", properties);
+        ReflectionTestUtils.setField(projector, "projections", Collections.singletonList(projection));
+    }
+
+    @Test
+    public void trimmedPendingEventIsAckedAndSkipped() {
+        eventLog.append(CatalogEvent.BOOK_ADDED, "k1").block();
+
+        // 投影失败，k1 留在待确认列表中
+        projection.failing = true;
+        projector.poll();
+        assertEquals(1L, (long) stats().getPending());
+
+        // 日志长度上限为 2，k1 与 k2 被裁剪，待确认列表中的 k1 只剩ID
+        projection.failing = false;
+        for (String key : Arrays.asList("k2", "k3", "k4")) {
+            eventLog.append(CatalogEvent.BOOK_ADDED, key).block();
+        }
+
+        projector.poll();
+        projector.poll();
+
+        assertEquals(Arrays.asList("k3", "k4"), projection.applied);
+        assertEquals(0L, (long) stats().getPending());
+        Map<String, Object> projectorStats = projector.stats().block();
+        assertEquals(1L, projectorStats.get("trimmed"));
+    }
+
+    private EventLogStats stats() {
+        return eventLog.stats(properties.getGroup()).block();
+    }
+
+    private static final class RecordingProjection implements CatalogProjection {
+
+        private final List<String> applied = new ArrayList<>();
+
+        private boolean failing;
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public Mono<Void> apply(List<CatalogEvent> events) {
+            if (failing) {
+                return Mono.error(new IllegalStateException("projection down"));
+            }
+            return Mono.fromRunnable(() -> events.forEach(event -> applied.add(event.getChildKey())));
+        }
+    }
+}
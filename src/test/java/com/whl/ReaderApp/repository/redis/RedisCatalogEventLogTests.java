@@ -0,0 +1,32 @@
+package com.whl.ReaderApp.repository.redis;
+
+import com.whl.ReaderApp.domain.CatalogEvent;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RedisCatalogEventLogTests {
+
+    @Test
+    public void parsesEntryFields() {
+        CatalogEvent event = RedisCatalogEventLog.toEvent(
+                Arrays.asList("1-0", Arrays.asList("type", CatalogEvent.BOOK_ADDED, "key", "k1")));
+
+        assertEquals("1-0", event.getId());
+        assertEquals(CatalogEvent.BOOK_ADDED, event.getType());
+        assertEquals("k1", event.getChildKey());
+    }
+
+    @Test
+    public void trimmedPendingEntryHasNoFields() {
+        // 待确认的事件被 MAXLEN 裁剪后，XREADGROUP 从 0 读取时字段列表为 nil
+        CatalogEvent event = RedisCatalogEventLog.toEvent(Arrays.asList("1-0", null));
+
+        assertEquals("1-0", event.getId());
+        assertEquals(CatalogEvent.TRIMMED, event.getType());
+        assertNull(event.getChildKey());
+    }
+}
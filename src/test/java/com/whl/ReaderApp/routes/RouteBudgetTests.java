@@ -0,0 +1,304 @@
+package com.whl.ReaderApp.routes;
+
+import com.whl.ReaderApp.catalog.CatalogProjector;
+import com.whl.ReaderApp.domain.Book;
+import com.whl.ReaderApp.domain.User;
+import com.whl.ReaderApp.recommend.CoOccurrenceEngine;
+import com.whl.ReaderApp.tools.RedisKey;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 路由性能预算回归测试
+ * <p>
+ * 以内存存储启动应用，通过 WebTestClient 逐个调用 BookRoute 与 UserRoute 的处理函数，统计每个请求在所有线程上分配的字节数
+ * （ThreadMXBean）与延迟分位数，超过 perf-budgets.properties 中的预算时失败。热路径上多出的 .log()、String.format
+ * 或多余的序列化都会体现为分配量上涨。
+ * <p>
+ * 分配量含测试客户端自身的编解码开销，只用于和预算比较。延迟受机器影响，较慢的机器上可以用 -Dperf.latency-scale=3 放宽延迟预算。
+ * 修改预算时以日志中的实测值为准，并在提交中说明原因。
+ * <p>
+ * 各路由共用一份数据（add 会新增书籍），按方法名顺序执行保证每次运行的数据一致；定时任务的间隔设为一小时，
+ * 测量期间不会在后台分配内存，投影与推荐落盘在准备数据后手动执行一次。
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "reader.storage.type=memory",
+        "reader.warmup.enabled=false",
+        // 哈希本身的开销由 PasswordHasherBenchmarkTests 覆盖，这里只关心请求路径
+        "reader.password.iterations=1000",
+        "reader.upload.dir=target/perf-upload",
+        // 定时任务只在启动时执行一次
+        "reader.catalog.stream.poll-interval-ms=3600000",
+        "reader.recommend.flush-interval-ms=3600000",
+        "reader.hotkey.window-ms=3600000",
+        "reader.filter.rebuild-interval-ms=3600000",
+        "reader.runtime.metrics-interval-ms=3600000"})
+@AutoConfigureWebTestClient
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class RouteBudgetTests {
+
+    private static final int WARMUP = 200;
+
+    private static final int REQUESTS = 500;
+
+    private static final int BOOKS = 200;
+
+    private static final int AUTHORS = 20;
+
+    private static final String ACCOUNT = "perf";
+
+    private static final String PASSWORD = "secret";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Properties budgets;
+
+    private static boolean seeded;
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private CatalogProjector catalogProjector;
+
+    @Autowired
+    private CoOccurrenceEngine coOccurrenceEngine;
+
+    @BeforeClass
+    public static void loadBudgets() throws IOException {
+        budgets = new Properties();
+        try (InputStream in = RouteBudgetTests.class.getResourceAsStream("/perf-budgets.properties")) {
+            assertNotNull("缺少 perf-budgets.properties", in);
+            budgets.load(in);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        if (!seeded) {
+            for (int i = 0; i < BOOKS; i++) {
+                ok(client.post().uri("/api/book/add").syncBody(book(i)).exchange());
+            }
+            ok(client.post().uri("/api/user/register").syncBody(new User(ACCOUNT, PASSWORD)).exchange());
+            for (int i = 0; i < 20; i++) {
+                ok(client.post().uri("/api/book/shop/{account}/{bookName}/{author}/{score}",
+                        ACCOUNT, name(i), author(i), 5).exchange());
+                ok(client.post().uri("/api/book/search/history/{account}/{word}", ACCOUNT, "书籍" + i).exchange());
+            }
+            // 作者索引与推荐数据由定时任务维护，测试中手动执行
+            catalogProjector.poll();
+            coOccurrenceEngine.flush();
+            seeded = true;
+        }
+    }
+
+    @Test
+    public void search() {
+        measure("search", i -> client.get().uri("/api/book/search/{word}", "书籍1" + i % 10).exchange());
+    }
+
+    @Test
+    public void add() {
+        measure("add", i -> client.post().uri("/api/book/add").syncBody(book(BOOKS + i)).exchange());
+    }
+
+    @Test
+    public void getShop() {
+        measure("getShop", i -> client.get().uri("/api/book/shop/{account}", ACCOUNT).exchange());
+    }
+
+    @Test
+    public void addToShop() {
+        measure("addToShop", i -> client.post().uri("/api/book/shop/{account}/{bookName}/{author}/{score}",
+                "perf-add", name(i % BOOKS), author(i % BOOKS), 5).exchange());
+    }
+
+    @Test
+    public void delFromShop() {
+        measure("delFromShop", i -> client.delete().uri("/api/book/shop/{account}/{bookName}/{author}",
+                "perf-del", name(i % BOOKS), author(i % BOOKS)).exchange());
+    }
+
+    @Test
+    public void addSearchHistory() {
+        measure("addSearchHistory", i -> client.post().uri("/api/book/search/history/{account}/{word}",
+                "perf-history", "词" + i % 50).exchange());
+    }
+
+    @Test
+    public void getSearchHistory() {
+        measure("getSearchHistory", i -> client.get().uri("/api/book/search/history/{account}", ACCOUNT).exchange());
+    }
+
+    @Test
+    public void delSearchHistory() {
+        measure("delSearchHistory", i -> client.delete().uri("/api/book/search/history/{account}", "perf-clear")
+                .exchange());
+    }
+
+    @Test
+    public void upload() {
+        byte[] cover = new byte[4096];
+        Arrays.fill(cover, (byte) 7);
+        measure("upload", i -> {
+            MultipartBodyBuilder builder = new MultipartBodyBuilder();
+            builder.part("file", new ByteArrayResource(cover) {
+                @Override
+                public String getFilename() {
+                    return "cover.png";
+                }
+            });
+            return client.post().uri("/api/book/upload").body(BodyInserters.fromMultipartData(builder.build()))
+                    .exchange();
+        });
+    }
+
+    @Test
+    public void findByAuthor() {
+        measure("findByAuthor", i -> client.get().uri("/api/book/author/{author}", author(i)).exchange());
+    }
+
+    @Test
+    public void batch() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add(RedisKey.of(RedisKey.BOOK_CHILD, name(i), author(i)));
+        }
+        String[] body = keys.toArray(new String[0]);
+        measure("batch", i -> client.post().uri("/api/book/batch").syncBody(body).exchange());
+    }
+
+    @Test
+    public void home() {
+        measure("home", i -> client.get().uri("/api/book/home/{account}", ACCOUNT).exchange());
+    }
+
+    @Test
+    public void recommend() {
+        measure("recommend", i -> client.get().uri("/api/book/recommend/{bookName}/{author}",
+                name(i % 20), author(i % 20)).exchange());
+    }
+
+    @Test
+    public void recommendForShop() {
+        measure("recommendForShop", i -> client.get().uri("/api/book/shop/{account}/recommend", ACCOUNT).exchange());
+    }
+
+    @Test
+    public void register() {
+        measure("register", i -> client.post().uri("/api/user/register")
+                .syncBody(new User("perf-reg-" + i, PASSWORD)).exchange());
+    }
+
+    @Test
+    public void login() {
+        measure("login", i -> client.post().uri("/api/user/login").syncBody(new User(ACCOUNT, PASSWORD)).exchange());
+    }
+
+    /**
+     * 预热后顺序发送请求，序号在预热与测量之间连续，需要唯一数据的路由可以直接使用
+     */
+    private void measure(String route, IntFunction<WebTestClient.ResponseSpec> request) {
+        for (int i = 0; i < WARMUP; i++) {
+            ok(request.apply(i));
+        }
+
+        long[] nanos = new long[REQUESTS];
+        long allocated = allocatedBytes();
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            ok(request.apply(WARMUP + i));
+            nanos[i] = System.nanoTime() - start;
+        }
+        long bytesPerRequest = (allocatedBytes() - allocated) / REQUESTS;
+
+        Arrays.sort(nanos);
+        double p50 = percentile(nanos, 0.5);
+        double p99 = percentile(nanos, 0.99);
+
+        long allocBudget = Long.parseLong(budget(route, "alloc-bytes"));
+        double scale = Double.parseDouble(System.getProperty("perf.latency-scale", "1"));
+        double p50Budget = Double.parseDouble(budget(route, "p50-ms")) * scale;
+        double p99Budget = Double.parseDouble(budget(route, "p99-ms")) * scale;
+
+        log.info("[性能预算] {}：每请求分配 {} 字节（预算 {}），p50 {} ms（预算 {}），p99 {} ms（预算 {}）",
+                route, bytesPerRequest, allocBudget, p50, p50Budget, p99, p99Budget);
+
+        assertTrue(route + " 每请求分配 " + bytesPerRequest + " 字节，超过预算 " + allocBudget,
+                bytesPerRequest <= allocBudget);
+        assertTrue(route + " p50 " + p50 + " ms，超过预算 " + p50Budget, p50 <= p50Budget);
+        assertTrue(route + " p99 " + p99 + " ms，超过预算 " + p99Budget, p99 <= p99Budget);
+    }
+
+    private static void ok(WebTestClient.ResponseSpec response) {
+        response.expectStatus().isOk().expectBody().returnResult();
+    }
+
+    private static String budget(String route, String metric) {
+        String value = budgets.getProperty(route + "." + metric);
+        assertNotNull("perf-budgets.properties 缺少 " + route + "." + metric, value);
+        return value.trim();
+    }
+
+    /**
+     * 所有存活线程的累计分配字节数，包括事件循环、定时任务与线程池中的处理
+     */
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        long nanos = sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+        return nanos / 10_000 / 100.0;
+    }
+
+    private static String name(int i) {
+        return "书籍" + i;
+    }
+
+    private static String author(int i) {
+        return "作者" + i % AUTHORS;
+    }
+
+    private static Book book(int i) {
+        return new Book(name(i), author(i), "简介", "upload/x.png", 100L);
+    }
+}
@@ -0,0 +1,126 @@
+package com.whl.ReaderApp.search;
+
+import com.whl.ReaderApp.config.SearchProperties;
+import com.whl.ReaderApp.domain.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class BookRankerBenchmarkTests {
+
+    private static final int CATALOG_SIZE = 200_000;
+
+    private static final int K = 50;
+
+    private BookRanker ranker;
+
+    @Before
+    public void setUp() {
+        ranker = new BookRanker();
+        ReflectionTestUtils.setField(ranker, "searchProperties", new SearchProperties());
+    }
+
+    @Test
+    public void ranksNameAboveAuthorAndExactAbovePrefixAboveInfix() {
+        List<Book> books = new ArrayList<>();
+        books.add(book("我的三体笔记", "某人"));
+        books.add(book("地球往事", "三体迷"));
+        books.add(book("三体全集", "刘慈欣"));
+        books.add(book("三体", "刘慈欣"));
+
+        List<String> names = ranker.rank(Flux.fromIterable(books), "三体", 10)
+                .map(Book::getName).collectList().block();
+
+        assertEquals(4, names.size());
+        assertEquals("三体", names.get(0));
+        assertEquals("三体全集", names.get(1));
+        assertEquals("我的三体笔记", names.get(2));
+        assertEquals("地球往事", names.get(3));
+    }
+
+    @Test
+    public void matchesTraditionalVariantAndTypo() {
+        List<Book> books = new ArrayList<>();
+        books.add(book("平凡的世界", "路遥"));
+        books.add(book("红楼梦", "曹雪芹"));
+
+        assertEquals("红楼梦", ranker.rank(Flux.fromIterable(books), "紅樓夢", 10).blockFirst().getName());
+        assertEquals("平凡的世界", ranker.rank(Flux.fromIterable(books), "平凡的世介", 10).blockFirst().getName());
+        assertEquals(Long.valueOf(0), ranker.rank(Flux.fromIterable(books), "三国演义", 10).count().block());
+    }
+
+    @Test
+    public void boundedHeapMatchesFullSortOnLargeCatalog() {
+        List<Book> catalog = syntheticCatalog(CATALOG_SIZE);
+        String keyword = "星辰";
+
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            ranker.rank(Flux.fromIterable(catalog), keyword, K).collectList().block();
+            fullSort(catalog, keyword);
+        }
+
+        long start = System.nanoTime();
+        List<Book> top = ranker.rank(Flux.fromIterable(catalog), keyword, K).collectList().block();
+        long heapNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Book> sorted = fullSort(catalog, keyword);
+        long sortNanos = System.nanoTime() - start;
+
+        log.info("[搜索排序] {} 本书，取前 {}：堆 {} ms，全量排序 {} ms，{} 本/秒",
+                CATALOG_SIZE, K, heapNanos / 1_000_000, sortNanos / 1_000_000,
+                CATALOG_SIZE * 1_000_000_000L / Math.max(heapNanos, 1));
+
+        assertEquals(K, top.size());
+        assertEquals(sorted, top);
+        assertTrue(ranker.score(ranker.query(keyword), top.get(0))
+                >= ranker.score(ranker.query(keyword), top.get(K - 1)));
+    }
+
+    private List<Book> fullSort(List<Book> catalog, String keyword) {
+        BookRanker.Query query = ranker.query(keyword);
+        Comparator<Book> byName = Comparator.comparing(Book::getName).thenComparing(Book::getAuthor);
+        return catalog.stream()
+                .map(book -> new Object[]{book, ranker.score(query, book)})
+                .filter(o -> (double) o[1] > 0)
+                .sorted((a, b) -> {
+                    int c = Double.compare((double) b[1], (double) a[1]);
+                    return c != 0 ? c : byName.compare((Book) a[0], (Book) b[0]);
+                })
+                .limit(K)
+                .map(o -> (Book) o[0])
+                .collect(Collectors.toList());
+    }
+
+    private static List<Book> syntheticCatalog(int size) {
+        String words = "星辰大海山河岁月风雪江湖少年故事时光记忆城市森林月亮太阳远方归途";
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder();
+            int len = 2 + random.nextInt(6);
+            for (int j = 0; j < len; j++) {
+                name.append(words.charAt(random.nextInt(words.length())));
+            }
+            books.add(book(name.toString() + i, "作者" + random.nextInt(5000)));
+        }
+        return books;
+    }
+
+    private static Book book(String name, String author) {
+        return new Book(name, author, "简介", "upload/x.png", 100L);
+    }
+}
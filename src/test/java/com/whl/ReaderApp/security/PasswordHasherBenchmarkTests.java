@@ -0,0 +1,205 @@
+package com.whl.ReaderApp.security;
+
+import com.whl.ReaderApp.config.PasswordProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class PasswordHasherBenchmarkTests {
+
+    private static final int LOGINS = 32;
+
+    private static final int ITERATIONS = 20_000;
+
+    private PasswordHasher hasher;
+
+    @After
+    public void tearDown() {
+        if (hasher != null) {
+            hasher.close();
+        }
+    }
+
+    @Test
+    public void hashesInStorageFormatAndUpgradesLegacyRecords() {
+        hasher = hasher(ITERATIONS, 2, 16);
+
+        String stored = hasher.hash("secret");
+        assertTrue(stored.startsWith("pbkdf2$" + ITERATIONS + "$"));
+        assertEquals(4, stored.split("\\$").length);
+        assertFalse(stored.equals(hasher.hash("secret")));
+
+        assertTrue(hasher.verify("secret", stored));
+        assertFalse(hasher.verify("Secret", stored));
+        assertFalse(hasher.needsRehash(stored));
+
+        // 旧的明文记录
+        assertTrue(hasher.verify("secret", "secret"));
+        assertFalse(hasher.verify("secret", "other"));
+        assertTrue(hasher.needsRehash("secret"));
+
+        // 迭代次数低于当前配置
+        PasswordHasher weaker = hasher(1_000, 1, 1);
+        try {
+            String old = weaker.hash("secret");
+            assertTrue(hasher.verify("secret", old));
+            assertTrue(hasher.needsRehash(old));
+        } finally {
+            weaker.close();
+        }
+    }
+
+    @Test
+    public void malformedRecordsNeverMatchAndNeedRehash() {
+        hasher = hasher(ITERATIONS, 1, 1);
+        String[] parts = hasher.hash("secret").split("\\$");
+
+        String[] malformed = {
+                // 迭代次数不是整数
+                "pbkdf2$abc$" + parts[2] + "$" + parts[3],
+                "pbkdf2$99999999999$" + parts[2] + "$" + parts[3],
+                // 非法 Base64
+                "pbkdf2$" + ITERATIONS + "$!!!$" + parts[3],
+                "pbkdf2$" + ITERATIONS + "$" + parts[2] + "$%%%",
+                // 空盐、非正的迭代次数
+                "pbkdf2$" + ITERATIONS + "$$" + parts[3],
+                "pbkdf2$0$" + parts[2] + "$" + parts[3],
+                "pbkdf2$" + ITERATIONS + "$" + parts[2],
+        };
+        for (String stored : malformed) {
+            assertFalse(stored, hasher.verify("secret", stored));
+            assertFalse(stored, hasher.verifyAsync("secret", stored).block(Duration.ofSeconds(10)));
+            assertTrue(stored, hasher.needsRehash(stored));
+        }
+    }
+
+    @Test
+    public void rejectsImmediatelyWhenQueueIsFull() {
+        hasher = hasher(ITERATIONS * 4, 1, 1);
+
+        long start = System.nanoTime();
+        List<Object> results = Flux.range(0, 10)
+                .flatMap(i -> hasher.hashAsync("secret")
+                        .<Object>map(hash -> hash)
+                        .onErrorResume(RejectedExecutionException.class, e -> Mono.just(e)))
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        long rejected = results.stream().filter(o -> o instanceof RejectedExecutionException).count();
+        log.info("[密码哈希] 1 线程、队列 1：提交 10 个，拒绝 {} 个，共 {} ms",
+                rejected, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        // 一个执行中、一个排队，其余立即拒绝
+        assertEquals(8, rejected);
+        assertEquals(8L, hasher.stats().get("rejected"));
+    }
+
+    @Test
+    public void offloadingKeepsEventLoopResponsive() {
+        hasher = hasher(ITERATIONS, Runtime.getRuntime().availableProcessors(), LOGINS);
+        String stored = hasher.hash("secret");
+
+        // 预热
+        for (int i = 0; i < 5; i++) {
+            hasher.verify("secret", stored);
+        }
+
+        Scheduler eventLoop = Schedulers.newSingle("event-loop");
+        try {
+            Run inline = run(eventLoop, raw -> Mono.fromCallable(() -> hasher.verify(raw, stored)));
+            Run offloaded = run(eventLoop, raw -> hasher.verifyAsync(raw, stored));
+
+            log.info("[密码哈希] {} 次并发登录，{} 次迭代，{} 个哈希线程", LOGINS, ITERATIONS,
+                    hasher.stats().get("threads"));
+            log.info("[密码哈希] 事件循环内哈希：{} 次/秒，事件循环延迟 p50 {} ms，p99 {} ms",
+                    inline.throughput, inline.p50, inline.p99);
+            log.info("[密码哈希] 独立线程池哈希：{} 次/秒，事件循环延迟 p50 {} ms，p99 {} ms",
+                    offloaded.throughput, offloaded.p50, offloaded.p99);
+
+            assertTrue(offloaded.p99 * 2 < inline.p99);
+        } finally {
+            eventLoop.dispose();
+        }
+    }
+
+    /**
+     * 在模拟的事件循环上发起全部登录，同时每 2 毫秒向事件循环提交一个探测任务，记录其排队时间
+     */
+    private Run run(Scheduler eventLoop, Function<String, Mono<Boolean>> login) {
+        List<Long> lags = Collections.synchronizedList(new ArrayList<>());
+        ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor();
+        prober.scheduleAtFixedRate(() -> {
+            long submitted = System.nanoTime();
+            eventLoop.schedule(() -> lags.add(System.nanoTime() - submitted));
+        }, 0, 2, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        try {
+            Long matched = Flux.range(0, LOGINS)
+                    .flatMap(i -> Mono.defer(() -> login.apply("secret")).subscribeOn(eventLoop))
+                    .filter(Boolean::booleanValue)
+                    .count()
+                    .block(Duration.ofMinutes(2));
+            assertEquals(Long.valueOf(LOGINS), matched);
+        } finally {
+            prober.shutdownNow();
+        }
+        long nanos = System.nanoTime() - start;
+
+        List<Long> sorted = new ArrayList<>(lags);
+        Collections.sort(sorted);
+        Run run = new Run();
+        run.throughput = LOGINS * 1_000_000_000L / Math.max(nanos, 1);
+        run.p50 = percentile(sorted, 0.5);
+        run.p99 = percentile(sorted, 0.99);
+        return run;
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        long nanos = sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * p)));
+        return nanos / 100_000 / 10.0;
+    }
+
+    private static PasswordHasher hasher(int iterations, int threads, int queueCapacity) {
+        PasswordProperties properties = new PasswordProperties();
+        properties.setIterations(iterations);
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        PasswordHasher hasher = new PasswordHasher();
+        ReflectionTestUtils.setField(hasher, "passwordProperties", properties);
+        hasher.init();
+        return hasher;
+    }
+
+    private static final class Run {
+
+        private long throughput;
+
+        private double p50;
+
+        private double p99;
+    }
+}